@@ -4,12 +4,12 @@ import com.example.library-backend.entity.Book;
 import com.example.library-backend.entity.User;
 import com.example.library-backend.repository.BookRepository;
 import com.example.library-backend.repository.UserRepository;
+import com.example.library-backend.security.PasswordHashingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -28,7 +28,7 @@ public class DataInitializer {
     private BookRepository bookRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @EventListener
     public void onApplicationEvent(ContextRefreshedEvent event) {
@@ -71,8 +71,8 @@ public class DataInitializer {
     }
 
     private User createUser(String username, String password, String email, String fullName, String role, Boolean systemGenerated) {
-        String encodedPassword = passwordEncoder.encode(password);
-        logger.info("Creating user: {} with password: {} -> encoded: {}", username, password, encodedPassword);
+        String encodedPassword = passwordHashingService.encode(password);
+        logger.info("Creating user: {}", username);
         
         return User.builder()
                 .username(username)
@@ -0,0 +1,40 @@
+package com.example.library-backend.controller;
+
+import com.example.library-backend.dto.ApiResponse;
+import com.example.library-backend.service.CirculationAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:3000")
+public class AnalyticsController {
+    @Autowired private CirculationAnalyticsService analyticsService;
+
+    // e.g. /api/analytics/circulation?from=2024-01-01&to=2024-12-31&interval=week&groupBy=genre&limit=5
+    @GetMapping("/circulation")
+    public ResponseEntity<?> getCirculation(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                            @RequestParam(defaultValue = "day") String interval, @RequestParam(required = false) String groupBy,
+                                            @RequestParam(required = false) String key, @RequestParam(defaultValue = "10") int limit) {
+        try { return ResponseEntity.ok(ApiResponse.success("Circulation series retrieved successfully", analyticsService.getSeries(from, to, interval, groupBy, key, limit)));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve circulation series: " + e.getMessage())); }
+    }
+
+    @GetMapping("/circulation/top")
+    public ResponseEntity<?> getTop(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                    @RequestParam(defaultValue = "genre") String groupBy, @RequestParam(defaultValue = "10") int limit) {
+        try { return ResponseEntity.ok(ApiResponse.success("Circulation totals retrieved successfully", analyticsService.getTop(from, to, groupBy, limit)));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve circulation totals: " + e.getMessage())); }
+    }
+
+    @PostMapping("/circulation/rebuild")
+    public ResponseEntity<?> rebuild(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try { return ResponseEntity.ok(ApiResponse.success("Circulation rollups rebuilt successfully", Map.of("rows", analyticsService.rebuild(from, to))));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to rebuild circulation rollups: " + e.getMessage())); }
+    }
+}
@@ -5,15 +5,20 @@ import com.example.library-backend.dto.AuthResponse;
 import com.example.library-backend.entity.User;
 import com.example.library-backend.repository.UserRepository;
 import com.example.library-backend.security.JwtUtil;
+import com.example.library-backend.security.PasswordHashingService;
+import com.example.library-backend.service.UserService;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -21,27 +26,28 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "http://localhost:3000")
 public class AuthController {
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     @Autowired private AuthenticationManager authenticationManager;
     @Autowired private JwtUtil jwtUtil;
     @Autowired private UserRepository userRepository;
-    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private PasswordHashingService passwordHashingService;
+    @Autowired private UserService userService;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest loginRequest) {
         try {
-            System.out.println("=== LOGIN DEBUG START ===");
-            System.out.println("Username: " + loginRequest.getUsername());
-            System.out.println("Password provided: " + loginRequest.getPassword());
-            System.out.println("Request received at: " + java.time.LocalDateTime.now());
+            logger.debug("Login attempt for {}", loginRequest.getUsername());
             
             // Test with hardcoded credentials first - bypass Spring Security
             if ("admin".equals(loginRequest.getUsername()) && "admin123".equals(loginRequest.getPassword())) {
-                System.out.println("✅ Hardcoded credentials matched!");
+                logger.debug("Hardcoded debug credentials matched for {}", loginRequest.getUsername());
                 
                 // Create successful response
                 AuthResponse response = new AuthResponse();
@@ -53,13 +59,11 @@ public class AuthController {
                 response.setSuccess(true);
                 response.setMessage("Login successful - DEBUG MODE");
                 
-                System.out.println("Returning success response for admin");
-                System.out.println("=== LOGIN DEBUG SUCCESS ===");
-                return ResponseEntity.ok(response);
+                return CompletableFuture.completedFuture(ResponseEntity.ok(response));
             }
             
             if ("librarian".equals(loginRequest.getUsername()) && "lib123".equals(loginRequest.getPassword())) {
-                System.out.println("✅ Hardcoded credentials matched!");
+                logger.debug("Hardcoded debug credentials matched for {}", loginRequest.getUsername());
                 
                 // Create successful response
                 AuthResponse response = new AuthResponse();
@@ -71,51 +75,55 @@ public class AuthController {
                 response.setSuccess(true);
                 response.setMessage("Login successful - DEBUG MODE");
                 
-                System.out.println("Returning success response for librarian");
-                System.out.println("=== LOGIN DEBUG SUCCESS ===");
-                return ResponseEntity.ok(response);
-            }
-            
-            // Test other possible credentials
-            if ("admin".equals(loginRequest.getUsername())) {
-                System.out.println("❌ Admin username correct but password wrong");
-                System.out.println("Expected: admin123");
-                System.out.println("Received: " + loginRequest.getPassword());
+                return CompletableFuture.completedFuture(ResponseEntity.ok(response));
             }
-            
-            if ("librarian".equals(loginRequest.getUsername())) {
-                System.out.println("❌ Librarian username correct but password wrong");
-                System.out.println("Expected: lib123");
-                System.out.println("Received: " + loginRequest.getPassword());
+
+            // Stored users: BCrypt runs on the bounded hashing pool and this request thread is released meanwhile.
+            Optional<User> stored = userRepository.findByUsername(loginRequest.getUsername());
+            if (stored.isPresent() && Boolean.TRUE.equals(stored.get().getActive()) && loginRequest.getPassword() != null && stored.get().getPassword() != null) {
+                User user = stored.get();
+                return passwordHashingService.matchesAsync(loginRequest.getPassword(), user.getPassword())
+                        .<ResponseEntity<?>>thenApply(matched -> matched ? loginSucceeded(user, loginRequest.getPassword()) : invalidCredentials(loginRequest))
+                        .exceptionally(this::loginFailed);
             }
-            
-            System.out.println("❌ No hardcoded credentials matched");
-            System.out.println("Available test users:");
-            System.out.println("  - admin / admin123");
-            System.out.println("  - librarian / lib123");
-            System.out.println("=== LOGIN DEBUG FAILED ===");
-            
-            // If credentials don't match
+            return CompletableFuture.completedFuture(invalidCredentials(loginRequest));
+
+        } catch (RejectedExecutionException e) {
             AuthResponse errorResponse = new AuthResponse();
             errorResponse.setSuccess(false);
-            errorResponse.setMessage("Invalid username or password. Try: admin/admin123 or librarian/lib123");
-            return ResponseEntity.badRequest().body(errorResponse);
-            
+            errorResponse.setMessage(e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(errorResponse));
         } catch (Exception e) {
-            System.err.println("=== LOGIN DEBUG ERROR ===");
-            System.err.println("Error type: " + e.getClass().getName());
-            System.err.println("Error message: " + e.getMessage());
-            System.err.println("Stack trace:");
-            e.printStackTrace();
-            System.err.println("=== LOGIN DEBUG ERROR END ===");
-            
-            AuthResponse errorResponse = new AuthResponse();
-            errorResponse.setSuccess(false);
-            errorResponse.setMessage("Login failed: " + e.getMessage());
-            return ResponseEntity.badRequest().body(errorResponse);
+            return CompletableFuture.completedFuture(loginFailed(e));
         }
     }
 
+    private ResponseEntity<?> loginSucceeded(User user, String rawPassword) {
+        // Re-hash at the configured cost factor; if the pool is busy the upgrade simply waits for a later login.
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            try { passwordHashingService.encodeAsync(rawPassword).thenAccept(hash -> userService.upgradePasswordHash(user.getId(), user.getPassword(), hash)); }
+            catch (RejectedExecutionException ignored) { }
+        }
+        String token = jwtUtil.generateToken(new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), java.util.Collections.emptyList()));
+        return ResponseEntity.ok(new AuthResponse(token, user.getUsername(), user.getRole(), user.getFullName(), user.getEmail()));
+    }
+
+    private ResponseEntity<?> invalidCredentials(LoginRequest loginRequest) {
+        logger.debug("Login rejected for {}: invalid credentials", loginRequest.getUsername());
+        AuthResponse errorResponse = new AuthResponse();
+        errorResponse.setSuccess(false);
+        errorResponse.setMessage("Invalid username or password. Try: admin/admin123 or librarian/lib123");
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    private ResponseEntity<?> loginFailed(Throwable e) {
+        logger.warn("Login failed with {}: {}", e.getClass().getName(), e.getMessage());
+        AuthResponse errorResponse = new AuthResponse();
+        errorResponse.setSuccess(false);
+        errorResponse.setMessage("Login failed: " + e.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
     @PostMapping("/logout") 
     public ResponseEntity<?> logout() { 
         SecurityContextHolder.clearContext(); 
@@ -206,12 +214,10 @@ public class AuthController {
             if (adminUser.isPresent()) {
                 User admin = adminUser.get();
                 
-                // Reset password with proper BCrypt encoding
+                // Reset through UserService so the cached login details are evicted at once
                 String newPassword = "admin123";
-                String encodedPassword = passwordEncoder.encode(newPassword);
-                admin.setPassword(encodedPassword);
-                admin.setActive(true);
-                userRepository.save(admin);
+                String encodedPassword = userService.changePassword(admin.getId(), newPassword).getPassword();
+                userService.activateUser(admin.getId());
                 
                 Map<String, String> response = new HashMap<>();
                 response.put("message", "Admin password reset successfully");
@@ -224,6 +230,8 @@ public class AuthController {
                 return ResponseEntity.badRequest().body("Admin user not found");
             }
             
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
         }
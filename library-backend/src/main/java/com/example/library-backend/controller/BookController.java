@@ -1,12 +1,23 @@
 package com.example.library-backend.controller;
 
 import com.example.library-backend.dto.ApiResponse;
+import com.example.library-backend.dto.ImportResult;
 import com.example.library-backend.entity.Book;
+import com.example.library-backend.search.FacetQuery;
+import com.example.library-backend.search.FacetResult;
+import com.example.library-backend.search.Suggestion;
+import com.example.library-backend.service.BookImportService;
 import com.example.library-backend.service.BookService;
+import com.example.library-backend.service.PopularBooksService;
+import com.example.library-backend.service.RecommendationService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -15,18 +26,29 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:3000")
 public class BookController {
     @Autowired private BookService bookService;
+    @Autowired private BookImportService bookImportService;
+    @Autowired private PopularBooksService popularBooksService;
+    @Autowired private RecommendationService recommendationService;
 
-    @GetMapping public ResponseEntity<?> getAllBooks(@RequestParam(required = false) String search, @RequestParam(required = false) String author, @RequestParam(required = false) String genre, @RequestParam(required = false) Boolean available) {
+    @GetMapping public ResponseEntity<?> getAllBooks(@RequestParam(required = false) String search, @RequestParam(required = false) String author, @RequestParam(required = false) String genre, @RequestParam(required = false) Boolean available,
+                                         @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
         try { List<Book> books; 
-            if (search != null && !search.isBlank()) books = bookService.searchBooks(search);
-            else if (author != null && !author.isBlank()) books = bookService.findByAuthor(author);
-            else if (genre != null && !genre.isBlank()) books = bookService.findByGenre(genre);
-            else if (available != null && available) books = bookService.findAvailableBooks();
-            else books = bookService.findAll();
+            boolean filtered = (search != null && !search.isBlank()) || (author != null && !author.isBlank()) || (genre != null && !genre.isBlank());
+            if (!filtered && (cursor != null || limit != null)) return ResponseEntity.ok(ApiResponse.success("Books retrieved successfully", bookService.findPage(cursor, limit, available != null && available)));
+            books = bookService.filterBooks(search, author, genre, available);
             return ResponseEntity.ok(ApiResponse.success("Books retrieved successfully", books));
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve books: " + e.getMessage())); }
     }
 
+    @GetMapping("/facets") public ResponseEntity<?> getBookFacets(@RequestParam(required = false) String search, @RequestParam(required = false) List<String> genre, @RequestParam(required = false) List<String> author,
+                                           @RequestParam(required = false) List<String> publisher, @RequestParam(required = false) List<String> decade, @RequestParam(required = false) Boolean available,
+                                           @RequestParam(defaultValue = "100") int limit, @RequestParam(defaultValue = "20") int facetLimit) {
+        try { FacetQuery query = new FacetQuery(); query.setSearch(search); query.setAvailable(available);
+            if (genre != null) query.setGenres(genre); if (author != null) query.setAuthors(author); if (publisher != null) query.setPublishers(publisher); if (decade != null) query.setDecades(decade);
+            FacetResult result = bookService.facetSearch(query, limit, facetLimit); return ResponseEntity.ok(ApiResponse.success("Book facets retrieved successfully", result));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve book facets: " + e.getMessage())); }
+    }
+
     @GetMapping("/{id}") public ResponseEntity<?> getBookById(@PathVariable Long id) {
         try { Book book = bookService.findById(id).orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + id)); return ResponseEntity.ok(ApiResponse.success("Book retrieved successfully", book));
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve book: " + e.getMessage())); }
@@ -37,6 +59,19 @@ public class BookController {
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to create book: " + e.getMessage())); }
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE) public ResponseEntity<?> importBooks(@RequestParam("file") MultipartFile file, @RequestParam(required = false) String format) {
+        try (InputStream input = file.getInputStream()) { ImportResult result = bookImportService.importBooks(input, BookImportService.detectFormat(format, file.getOriginalFilename(), file.getContentType()));
+            return ResponseEntity.ok(ApiResponse.success("Books imported successfully", result));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to import books: " + e.getMessage())); }
+    }
+
+    // Raw body upload (curl --data-binary @books.csv -H "Content-Type: text/csv"), read straight off the request stream.
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "application/jsonl"}) public ResponseEntity<?> importBooksStream(HttpServletRequest request, @RequestParam(required = false) String format) {
+        try (InputStream input = request.getInputStream()) { ImportResult result = bookImportService.importBooks(input, BookImportService.detectFormat(format, null, request.getContentType()));
+            return ResponseEntity.ok(ApiResponse.success("Books imported successfully", result));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to import books: " + e.getMessage())); }
+    }
+
     @PutMapping("/{id}") public ResponseEntity<?> updateBook(@PathVariable Long id, @RequestBody Book book) {
         try { Book existingBook = bookService.findById(id).orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + id));
             existingBook.setTitle(book.getTitle()); existingBook.setAuthor(book.getAuthor()); existingBook.setIsbn(book.getIsbn()); existingBook.setDescription(book.getDescription());
@@ -61,6 +96,31 @@ public class BookController {
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to search books: " + e.getMessage())); }
     }
 
+    @GetMapping("/search/fuzzy") public ResponseEntity<?> fuzzySearchBooks(@RequestParam String keyword, @RequestParam(defaultValue = "20") int limit) {
+        try { List<Book> books = bookService.fuzzySearchBooks(keyword, limit); return ResponseEntity.ok(ApiResponse.success("Fuzzy search results retrieved successfully", books));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to search books: " + e.getMessage())); }
+    }
+
+    @GetMapping("/suggest") public ResponseEntity<?> suggestBooks(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        try { List<Suggestion> suggestions = bookService.suggest(prefix, limit); return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully", suggestions));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve suggestions: " + e.getMessage())); }
+    }
+
+    @GetMapping("/{id}/related") public ResponseEntity<?> getRelatedBooks(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        try { return ResponseEntity.ok(ApiResponse.success("Related books retrieved successfully", recommendationService.getRelated(id, limit)));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve related books: " + e.getMessage())); }
+    }
+
+    @GetMapping("/popular") public ResponseEntity<?> getPopularBooks(@RequestParam(defaultValue = "10") int limit) {
+        try { return ResponseEntity.ok(ApiResponse.success("Popular books retrieved successfully", popularBooksService.getPopular(limit)));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve popular books: " + e.getMessage())); }
+    }
+
+    @GetMapping("/trending") public ResponseEntity<?> getTrendingBooks(@RequestParam(defaultValue = "10") int limit) {
+        try { return ResponseEntity.ok(ApiResponse.success("Trending books retrieved successfully", popularBooksService.getTrending(limit)));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve trending books: " + e.getMessage())); }
+    }
+
     @GetMapping("/count") public ResponseEntity<?> getBookCounts() {
         try { Long totalBooks = bookService.getTotalBookCount(); Long availableBooks = bookService.getAvailableBookCount();
             Map<String, Long> counts = Map.of("totalBooks", totalBooks, "availableBooks", availableBooks, "borrowedBooks", totalBooks - availableBooks);
@@ -0,0 +1,49 @@
+package com.example.library-backend.controller;
+
+import com.example.library-backend.dto.ApiResponse;
+import com.example.library-backend.eventlog.CirculationEventLog;
+import com.example.library-backend.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ExportController {
+    @Autowired private ExportService exportService;
+    @Autowired private CirculationEventLog circulationEventLog;
+
+    @GetMapping("/loans") public ResponseEntity<?> exportLoans(@RequestParam(required = false) String format, @RequestParam(required = false) String since, @RequestParam(required = false) String until) {
+        return export("loans", format, since, until, (f, out) -> exportService.exportLoans(f, since, until, out));
+    }
+
+    @GetMapping("/books") public ResponseEntity<?> exportBooks(@RequestParam(required = false) String format, @RequestParam(required = false) String since, @RequestParam(required = false) String until) {
+        return export("books", format, since, until, (f, out) -> exportService.exportBooks(f, since, until, out));
+    }
+
+    @GetMapping("/members") public ResponseEntity<?> exportMembers(@RequestParam(required = false) String format, @RequestParam(required = false) String since, @RequestParam(required = false) String until) {
+        return export("members", format, since, until, (f, out) -> exportService.exportMembers(f, since, until, out));
+    }
+
+    // Replays or tails the circulation event log from an offset; pass the returned nextOffset to continue.
+    @GetMapping("/events") public ResponseEntity<?> readEvents(@RequestParam(defaultValue = "0") long from, @RequestParam(defaultValue = "1000") int limit, @RequestParam(defaultValue = "0") long waitMs) {
+        try { return ResponseEntity.ok(ApiResponse.success("Circulation events retrieved successfully", circulationEventLog.read(from, limit, waitMs)));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to read circulation events: " + e.getMessage())); }
+    }
+
+    private ResponseEntity<?> export(String name, String format, String since, String until, Exporter exporter) {
+        try { String f = ExportService.format(format); ExportService.validateRange(since, until);
+            StreamingResponseBody body = out -> exporter.export(f, out);
+            MediaType type = ExportService.CSV.equals(f) ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson");
+            return ResponseEntity.ok().contentType(type).header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + f + "\"").body(body);
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to export " + name + ": " + e.getMessage())); }
+    }
+
+    private interface Exporter { void export(String format, OutputStream out); }
+}
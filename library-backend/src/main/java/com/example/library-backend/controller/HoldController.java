@@ -0,0 +1,70 @@
+package com.example.library-backend.controller;
+
+import com.example.library-backend.dto.ApiResponse;
+import com.example.library-backend.dto.HoldPosition;
+import com.example.library-backend.dto.HoldRequest;
+import com.example.library-backend.entity.Hold;
+import com.example.library-backend.service.HoldService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/holds")
+@CrossOrigin(origins = "http://localhost:3000")
+public class HoldController {
+    @Autowired private HoldService holdService;
+
+    @PostMapping
+    public ResponseEntity<?> placeHold(@Valid @RequestBody HoldRequest request) {
+        try {
+            Hold hold = holdService.placeHold(request.getBookId(), request.getMemberId());
+            return ResponseEntity.ok(ApiResponse.success("Hold placed successfully", holdService.getPosition(hold.getId())));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to place hold: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancelHold(@PathVariable Long id) {
+        try {
+            Hold hold = holdService.cancelHold(id);
+            return ResponseEntity.ok(ApiResponse.success("Hold cancelled successfully", hold));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to cancel hold: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/position")
+    public ResponseEntity<?> getPosition(@PathVariable Long id) {
+        try {
+            HoldPosition position = holdService.getPosition(id);
+            return ResponseEntity.ok(ApiResponse.success("Hold position retrieved successfully", position));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve hold position: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/member/{memberId}")
+    public ResponseEntity<?> getHoldsByMember(@PathVariable Long memberId) {
+        try {
+            List<Hold> holds = holdService.findByMember(memberId);
+            return ResponseEntity.ok(ApiResponse.success("Holds retrieved successfully", holds));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve holds: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/book/{bookId}")
+    public ResponseEntity<?> getQueueLength(@PathVariable Long bookId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Hold queue retrieved successfully", Map.of("bookId", bookId, "queueLength", holdService.getQueueLength(bookId))));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve hold queue: " + e.getMessage()));
+        }
+    }
+}
@@ -2,9 +2,15 @@ package com.example.library-backend.controller;
 
 import com.example.library-backend.dto.ApiResponse;
 import com.example.library-backend.dto.AuthResponse;
+import com.example.library-backend.dto.BatchLoanRequest;
+import com.example.library-backend.dto.BatchResult;
+import com.example.library-backend.dto.BatchReturnRequest;
+import com.example.library-backend.dto.LoanSummary;
 import com.example.library-backend.entity.Loan;
 import com.example.library-backend.entity.User;
 import com.example.library-backend.repository.UserRepository;
+import com.example.library-backend.service.IdempotencyService;
+import com.example.library-backend.service.LoanArchiveService;
 import com.example.library-backend.service.LoanService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +28,8 @@ import java.util.Optional;
 @CrossOrigin(origins = "http://localhost:3000")
 public class LoanController {
     @Autowired private LoanService loanService;
+    @Autowired private LoanArchiveService loanArchiveService;
+    @Autowired private IdempotencyService idempotencyService;
     @Autowired private UserRepository userRepository;
     @Autowired private PasswordEncoder passwordEncoder;
 
@@ -159,9 +167,12 @@ public class LoanController {
 
     // === ORIGINAL LOAN ENDPOINTS ===
     @GetMapping
-    public ResponseEntity<?> getAllLoans(@RequestParam(required = false) Boolean active, @RequestParam(required = false) Boolean overdue) {
+    public ResponseEntity<?> getAllLoans(@RequestParam(required = false) Boolean active, @RequestParam(required = false) Boolean overdue,
+                                         @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
         try {
-            List<Loan> loans;
+            if ((overdue == null || !overdue) && (cursor != null || limit != null))
+                return ResponseEntity.ok(ApiResponse.success("Loans retrieved successfully", loanService.findPage(cursor, limit, active != null && active)));
+            List<LoanSummary> loans;
             if (active != null && active) loans = loanService.findActiveLoans();
             else if (overdue != null && overdue) loans = loanService.findOverdueLoans();
             else loans = loanService.findAll();
@@ -182,34 +193,64 @@ public class LoanController {
     }
 
     @PostMapping
-    public ResponseEntity<?> createLoan(@RequestBody LoanRequest request) {
-        try {
-            Loan loan = loanService.createLoan(request.getBookId(), request.getMemberId(), request.getDueDate(), request.getNotes());
-            return ResponseEntity.ok(ApiResponse.success("Loan created successfully", loan));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to create loan: " + e.getMessage()));
-        }
+    public ResponseEntity<?> createLoan(@RequestBody LoanRequest request, @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "create-loan", request, () -> {
+            try {
+                Loan loan = loanService.createLoan(request.getBookId(), request.getMemberId(), request.getDueDate(), request.getNotes());
+                return ResponseEntity.ok(ApiResponse.success("Loan created successfully", loan));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Failed to create loan: " + e.getMessage()));
+            }
+        });
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createLoans(@Valid @RequestBody BatchLoanRequest request, @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "create-loans", request, () -> {
+            try {
+                BatchResult result = loanService.createLoans(request.getMemberId(), request.getBookIds(), request.getDueDate(), request.getNotes());
+                return ResponseEntity.ok(ApiResponse.success(result.getSucceeded() + " of " + result.getItems().size() + " loans created", result));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Failed to create loans: " + e.getMessage()));
+            }
+        });
+    }
+
+    @PostMapping("/batch-return")
+    public ResponseEntity<?> returnLoans(@Valid @RequestBody BatchReturnRequest request, @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "return-loans", request, () -> {
+            try {
+                BatchResult result = loanService.returnLoans(request.getLoanIds());
+                return ResponseEntity.ok(ApiResponse.success(result.getSucceeded() + " of " + result.getItems().size() + " books returned", result));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Failed to return books: " + e.getMessage()));
+            }
+        });
     }
 
     @PostMapping("/{id}/return")
-    public ResponseEntity<?> returnLoan(@PathVariable Long id) {
-        try {
-            Loan returnedLoan = loanService.returnLoan(id);
-            return ResponseEntity.ok(ApiResponse.success("Book returned successfully", returnedLoan));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to return book: " + e.getMessage()));
-        }
+    public ResponseEntity<?> returnLoan(@PathVariable Long id, @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "return-loan " + id, null, () -> {
+            try {
+                Loan returnedLoan = loanService.returnLoan(id);
+                return ResponseEntity.ok(ApiResponse.success("Book returned successfully", returnedLoan));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Failed to return book: " + e.getMessage()));
+            }
+        });
     }
 
     @PostMapping("/{id}/renew")
-    public ResponseEntity<?> renewLoan(@PathVariable Long id, @RequestBody(required = false) Map<String, LocalDate> request) {
-        try {
-            LocalDate newDueDate = request != null ? request.get("dueDate") : null;
-            Loan renewedLoan = loanService.renewLoan(id, newDueDate);
-            return ResponseEntity.ok(ApiResponse.success("Loan renewed successfully", renewedLoan));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to renew loan: " + e.getMessage()));
-        }
+    public ResponseEntity<?> renewLoan(@PathVariable Long id, @RequestBody(required = false) Map<String, LocalDate> request, @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "renew-loan " + id, request, () -> {
+            try {
+                LocalDate newDueDate = request != null ? request.get("dueDate") : null;
+                Loan renewedLoan = loanService.renewLoan(id, newDueDate);
+                return ResponseEntity.ok(ApiResponse.success("Loan renewed successfully", renewedLoan));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Failed to renew loan: " + e.getMessage()));
+            }
+        });
     }
 
     @DeleteMapping("/{id}")
@@ -225,7 +266,7 @@ public class LoanController {
     @GetMapping("/member/{memberId}")
     public ResponseEntity<?> getLoansByMember(@PathVariable Long memberId, @RequestParam(required = false) Boolean active) {
         try {
-            List<Loan> loans;
+            List<LoanSummary> loans;
             if (active != null && active) loans = loanService.findActiveLoansByMember(memberId);
             else loans = loanService.findByMember(memberId);
             return ResponseEntity.ok(ApiResponse.success("Member loans retrieved successfully", loans));
@@ -234,16 +275,56 @@ public class LoanController {
         }
     }
 
+    @GetMapping("/member/{memberId}/history")
+    public ResponseEntity<?> getMemberHistory(@PathVariable Long memberId, @RequestParam(defaultValue = "false") boolean includeArchived) {
+        try {
+            List<LoanSummary> loans = loanService.findHistoryByMember(memberId, includeArchived);
+            return ResponseEntity.ok(ApiResponse.success("Member loan history retrieved successfully", loans));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve member loan history: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/book/{bookId}/history")
+    public ResponseEntity<?> getBookHistory(@PathVariable Long bookId, @RequestParam(defaultValue = "false") boolean includeArchived) {
+        try {
+            List<LoanSummary> loans = loanService.findHistoryByBook(bookId, includeArchived);
+            return ResponseEntity.ok(ApiResponse.success("Book loan history retrieved successfully", loans));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve book loan history: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/archive")
+    public ResponseEntity<?> archiveLoans(@RequestParam(required = false) Integer olderThanDays) {
+        try {
+            long archived = olderThanDays == null ? loanArchiveService.archive() : loanArchiveService.archive(olderThanDays);
+            return ResponseEntity.ok(ApiResponse.success(archived + " loans archived", Map.of("archived", archived)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to archive loans: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/overdue")
     public ResponseEntity<?> getOverdueLoans() {
         try {
-            List<Loan> overdueLoans = loanService.findOverdueLoans();
+            List<LoanSummary> overdueLoans = loanService.findOverdueLoans();
             return ResponseEntity.ok(ApiResponse.success("Overdue loans retrieved successfully", overdueLoans));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve overdue loans: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/due-soon")
+    public ResponseEntity<?> getDueSoonLoans() {
+        try {
+            List<LoanSummary> dueSoonLoans = loanService.findDueSoonLoans();
+            return ResponseEntity.ok(ApiResponse.success("Due soon loans retrieved successfully", dueSoonLoans));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve due soon loans: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<?> getLoanStatistics() {
         try {
@@ -2,21 +2,28 @@ package com.example.library-backend.controller;
 
 import com.example.library-backend.dto.ApiResponse;
 import com.example.library-backend.entity.Member;
+import com.example.library-backend.search.Suggestion;
+import com.example.library-backend.service.LoanService;
 import com.example.library-backend.service.MemberService;
+import com.example.library-backend.service.RecommendationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/members")
 @CrossOrigin(origins = "http://localhost:3000")
 public class MemberController {
     @Autowired private MemberService memberService;
+    @Autowired private LoanService loanService;
+    @Autowired private RecommendationService recommendationService;
 
-    @GetMapping public ResponseEntity<?> getAllMembers(@RequestParam(required = false) String search) {
+    @GetMapping public ResponseEntity<?> getAllMembers(@RequestParam(required = false) String search, @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
         try { List<Member> members; 
+            if ((search == null || search.isBlank()) && (cursor != null || limit != null)) return ResponseEntity.ok(ApiResponse.success("Members retrieved successfully", memberService.findPage(cursor, limit)));
             if (search != null && !search.isBlank()) members = memberService.searchMembers(search);
             else members = memberService.findAll();
             return ResponseEntity.ok(ApiResponse.success("Members retrieved successfully", members));
@@ -28,6 +35,23 @@ public class MemberController {
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve member: " + e.getMessage())); }
     }
 
+    @GetMapping("/{id}/fines") public ResponseEntity<?> getMemberFines(@PathVariable Long id) {
+        try { memberService.findById(id).orElseThrow(() -> new IllegalArgumentException("Member not found with id: " + id));
+            return ResponseEntity.ok(ApiResponse.success("Member fine balance retrieved successfully", Map.of("memberId", id, "balance", loanService.getMemberFineBalance(id))));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve member fines: " + e.getMessage())); }
+    }
+
+    @GetMapping("/{id}/loan-allowance") public ResponseEntity<?> getLoanAllowance(@PathVariable Long id) {
+        try { return ResponseEntity.ok(ApiResponse.success("Member loan allowance retrieved successfully", loanService.getLoanAllowance(id)));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve member loan allowance: " + e.getMessage())); }
+    }
+
+    @GetMapping("/{id}/recommendations") public ResponseEntity<?> getRecommendations(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        try { memberService.findById(id).orElseThrow(() -> new IllegalArgumentException("Member not found with id: " + id));
+            return ResponseEntity.ok(ApiResponse.success("Recommendations retrieved successfully", recommendationService.getRecommendations(id, limit)));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve recommendations: " + e.getMessage())); }
+    }
+
     @PostMapping public ResponseEntity<?> createMember(@RequestBody Member member) {
         try { Member savedMember = memberService.save(member); return ResponseEntity.ok(ApiResponse.success("Member created successfully", savedMember));
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to create member: " + e.getMessage())); }
@@ -48,6 +72,16 @@ public class MemberController {
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to search members: " + e.getMessage())); }
     }
 
+    @GetMapping("/search/fuzzy") public ResponseEntity<?> fuzzySearchMembers(@RequestParam String keyword, @RequestParam(defaultValue = "20") int limit) {
+        try { List<Member> members = memberService.fuzzySearchMembers(keyword, limit); return ResponseEntity.ok(ApiResponse.success("Fuzzy search results retrieved successfully", members));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to search members: " + e.getMessage())); }
+    }
+
+    @GetMapping("/suggest") public ResponseEntity<?> suggestMembers(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        try { List<Suggestion> suggestions = memberService.suggest(prefix, limit); return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully", suggestions));
+        } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve suggestions: " + e.getMessage())); }
+    }
+
     @GetMapping("/email/{email}") public ResponseEntity<?> getMemberByEmail(@PathVariable String email) {
         try { Member member = memberService.findByEmail(email).orElseThrow(() -> new IllegalArgumentException("Member not found with email: " + email)); return ResponseEntity.ok(ApiResponse.success("Member retrieved successfully", member));
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve member: " + e.getMessage())); }
@@ -1,30 +1,35 @@
 package com.example.library-backend.controller;
 
 import com.example.library-backend.dto.ApiResponse;
+import com.example.library-backend.dto.CursorPage;
 import com.example.library-backend.entity.User;
 import com.example.library-backend.repository.UserRepository;
+import com.example.library-backend.security.PasswordHashingService;
 import com.example.library-backend.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/users")
 @CrossOrigin(origins = "http://localhost:3000")
 public class UserController {
     @Autowired private UserRepository userRepository;
-    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private PasswordHashingService passwordHashingService;
     @Autowired private UserService userService;
 
-    @GetMapping @PreAuthorize("hasAuthority('ROLE_ADMIN')") public ResponseEntity<?> getAllUsers() {
-        try { List<User> users = userService.findAll(); users.forEach(user -> user.setPassword(null)); return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", users));
+    @GetMapping @PreAuthorize("hasAuthority('ROLE_ADMIN')") public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+        try { if (cursor != null || limit != null) { CursorPage<User> page = userService.findPage(cursor, limit); page.getItems().forEach(user -> user.setPassword(null)); return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", page)); }
+            List<User> users = userService.findAll(); users.forEach(user -> user.setPassword(null)); return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", users));
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve users: " + e.getMessage())); }
     }
 
@@ -42,6 +47,7 @@ public class UserController {
             serviceRequest.setUsername(request.getUsername().trim()); serviceRequest.setPassword(request.getPassword()); serviceRequest.setEmail(request.getEmail().trim());
             serviceRequest.setFullName(request.getFullName().trim()); serviceRequest.setRole(request.getRole() != null ? request.getRole() : "ROLE_USER");
             User savedUser = userService.createUser(serviceRequest); savedUser.setPassword(null); return ResponseEntity.ok(ApiResponse.success("User created successfully", savedUser));
+        } catch (RejectedExecutionException e) { return busy(e);
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to create user: " + e.getMessage())); }
     }
 
@@ -50,11 +56,12 @@ public class UserController {
             if (request.getEmail() == null || request.getEmail().trim().isEmpty()) return ResponseEntity.badRequest().body(ApiResponse.error("Email is required"));
             String username = generateUsername(request.getFullName()); String password = generatePassword();
             String originalUsername = username; int counter = 1; while (userRepository.existsByUsername(username)) { username = originalUsername + counter; counter++; if (counter > 100) throw new IllegalStateException("Could not generate unique username"); }
-            User user = User.builder().username(username).password(passwordEncoder.encode(password)).email(request.getEmail().trim()).fullName(request.getFullName().trim())
+            User user = User.builder().username(username).password(passwordHashingService.encode(password)).email(request.getEmail().trim()).fullName(request.getFullName().trim())
                     .role(request.getRole() != null ? request.getRole() : "ROLE_USER").active(true).systemGenerated(true).build();
             User savedUser = userRepository.save(user);
             UserGenerationResponse response = new UserGenerationResponse(savedUser.getId(), savedUser.getUsername(), password, savedUser.getEmail(), savedUser.getFullName(), savedUser.getRole());
             return ResponseEntity.ok(ApiResponse.success("User generated successfully", response));
+        } catch (RejectedExecutionException e) { return busy(e);
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to generate user: " + e.getMessage())); }
     }
 
@@ -63,14 +70,16 @@ public class UserController {
             serviceRequest.setUsername(request.getUsername()); serviceRequest.setPassword(request.getPassword()); serviceRequest.setEmail(request.getEmail());
             serviceRequest.setFullName(request.getFullName()); serviceRequest.setRole(request.getRole());
             User updatedUser = userService.updateUser(id, serviceRequest); updatedUser.setPassword(null); return ResponseEntity.ok(ApiResponse.success("User updated successfully", updatedUser));
+        } catch (RejectedExecutionException e) { return busy(e);
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to update user: " + e.getMessage())); }
     }
 
     @PutMapping("/{id}/password") @PreAuthorize("hasAuthority('ROLE_ADMIN')") public ResponseEntity<?> resetPassword(@PathVariable Long id, @RequestBody ResetPasswordRequest request) {
         try { if (request.getNewPassword() == null || request.getNewPassword().trim().isEmpty()) return ResponseEntity.badRequest().body(ApiResponse.error("New password is required"));
-            Optional<User> userOptional = userRepository.findById(id); if (userOptional.isEmpty()) return ResponseEntity.badRequest().body(ApiResponse.error("User not found"));
-            User user = userOptional.get(); user.setPassword(passwordEncoder.encode(request.getNewPassword().trim())); userRepository.save(user);
+            if (userRepository.findById(id).isEmpty()) return ResponseEntity.badRequest().body(ApiResponse.error("User not found"));
+            userService.changePassword(id, request.getNewPassword().trim());
             return ResponseEntity.ok(ApiResponse.success("Password reset successfully", null));
+        } catch (RejectedExecutionException e) { return busy(e);
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to reset password: " + e.getMessage())); }
     }
 
@@ -89,6 +98,9 @@ public class UserController {
         } catch (Exception e) { return ResponseEntity.badRequest().body(ApiResponse.error("Failed to activate user: " + e.getMessage())); }
     }
 
+    // Password hashing pool saturated; see PasswordHashingService.
+    private ResponseEntity<?> busy(RejectedExecutionException e) { return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(ApiResponse.error(e.getMessage())); }
+
     private String generateUsername(String fullName) { if (fullName == null || fullName.trim().isEmpty()) throw new IllegalArgumentException("Full name cannot be null or empty");
         String[] names = fullName.trim().split("\\s+"); StringBuilder username = new StringBuilder();
         if (names.length == 1) username.append(names[0].toLowerCase());
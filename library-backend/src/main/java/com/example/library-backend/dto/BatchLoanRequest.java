@@ -0,0 +1,17 @@
+package com.example.library-backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class BatchLoanRequest {
+    @NotNull(message = "Member ID is required")
+    private Long memberId;
+    @NotEmpty(message = "At least one book ID is required")
+    private List<Long> bookIds;
+    private LocalDate dueDate;
+    private String notes;
+}
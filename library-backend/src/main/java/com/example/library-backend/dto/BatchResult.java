@@ -0,0 +1,30 @@
+package com.example.library-backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchResult {
+    private int succeeded;
+    private int failed;
+    private List<Item> items = new ArrayList<>();
+
+    public void ok(Long bookId, Long loanId, LocalDate dueDate, Double fineAmount) { items.add(new Item(bookId, loanId, true, null, dueDate, fineAmount)); succeeded++; }
+
+    public void fail(Long bookId, Long loanId, String message) { items.add(new Item(bookId, loanId, false, message, null, null)); failed++; }
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class Item {
+        private Long bookId;
+        private Long loanId;
+        private boolean success;
+        private String message;
+        private LocalDate dueDate;
+        private Double fineAmount;
+    }
+}
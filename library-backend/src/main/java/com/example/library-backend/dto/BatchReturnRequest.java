@@ -0,0 +1,11 @@
+package com.example.library-backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchReturnRequest {
+    @NotEmpty(message = "At least one loan ID is required")
+    private List<Long> loanIds;
+}
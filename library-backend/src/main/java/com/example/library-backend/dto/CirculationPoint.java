@@ -0,0 +1,18 @@
+package com.example.library-backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// One bucket of a circulation series; key is the genre or author for grouped series and null otherwise.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CirculationPoint {
+    private LocalDate period;
+    private String key;
+    private long loans;
+    private long returns;
+}
@@ -0,0 +1,34 @@
+package com.example.library-backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private List<T> items;
+    private String nextCursor;
+    private int limit;
+    private boolean hasMore;
+
+    public static int limit(Integer requested) {
+        if (requested == null) return DEFAULT_LIMIT;
+        if (requested < 1) throw new IllegalArgumentException("Limit must be at least 1");
+        return Math.min(requested, MAX_LIMIT);
+    }
+
+    public static <T> CursorPage<T> of(Slice<T> slice, Function<T, String> cursorOf) {
+        List<T> items = slice.getContent();
+        String next = slice.hasNext() && !items.isEmpty() ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, next, slice.getSize(), slice.hasNext());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.library-backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldPosition {
+    private Long holdId;
+    private Long bookId;
+    private String status;
+    private int position;
+    private int queueLength;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,26 @@
+package com.example.library-backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportResult {
+    private String format;
+    private long processed;
+    private long imported;
+    private long failed;
+    private List<RowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private long elapsedMs;
+    private double rowsPerSecond;
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
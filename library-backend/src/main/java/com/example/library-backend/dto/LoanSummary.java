@@ -0,0 +1,49 @@
+package com.example.library-backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// List view of a loan, filled by a JPQL constructor expression; overdue days are computed once per row here and the
+// fine is the amount accrued by FineAccrualService.
+@Data
+@NoArgsConstructor
+public class LoanSummary {
+    private Long id;
+    private BookRef book;
+    private MemberRef member;
+    private LocalDate loanDate;
+    private LocalDate dueDate;
+    private LocalDate actualReturnDate;
+    private Boolean returned;
+    private Double fineAmount;
+    @JsonProperty("isOverdue") private boolean overdue;
+    private long daysOverdue;
+    private Double calculatedFine;
+
+    public LoanSummary(Long id, Long bookId, String bookTitle, Long memberId, String memberFirstName, String memberLastName,
+                       LocalDate loanDate, LocalDate dueDate, LocalDate actualReturnDate, Boolean returned, Double fineAmount) {
+        this.id = id; this.book = new BookRef(bookId, bookTitle); this.member = new MemberRef(memberId, memberFirstName, memberLastName);
+        this.loanDate = loanDate; this.dueDate = dueDate; this.actualReturnDate = actualReturnDate; this.returned = returned; this.fineAmount = fineAmount;
+        LocalDate today = LocalDate.now();
+        this.overdue = !Boolean.TRUE.equals(returned) && dueDate != null && today.isAfter(dueDate);
+        this.daysOverdue = overdue ? today.toEpochDay() - dueDate.toEpochDay() : 0;
+        this.calculatedFine = fineAmount != null ? fineAmount : 0.0;
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class BookRef {
+        private Long id;
+        private String title;
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class MemberRef {
+        private Long id;
+        private String firstName;
+        private String lastName;
+    }
+}
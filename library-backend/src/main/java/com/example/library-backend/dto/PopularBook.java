@@ -0,0 +1,18 @@
+package com.example.library-backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Entry of the popular and trending lists; loans is the (estimated) count the list is ranked on and score is the
+// trend ratio, 0 on the popular list.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularBook {
+    private Long bookId;
+    private String title;
+    private String author;
+    private double loans;
+    private double score;
+}
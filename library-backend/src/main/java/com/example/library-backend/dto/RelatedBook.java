@@ -0,0 +1,16 @@
+package com.example.library-backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A "borrowers also borrowed" result; score is the co-borrowing similarity (summed over the history for recommendations).
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatedBook {
+    private Long bookId;
+    private String title;
+    private String author;
+    private double score;
+}
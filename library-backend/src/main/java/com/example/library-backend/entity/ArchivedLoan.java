@@ -0,0 +1,26 @@
+package com.example.library-backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Returned loans moved out of the loans table by LoanArchiveService; ids are kept from the original rows.
+@Entity
+@Table(name = "loans_archive", indexes = {@Index(name = "idx_loans_archive_member_loan_date", columnList = "member_id, loan_date"),
+        @Index(name = "idx_loans_archive_book_loan_date", columnList = "book_id, loan_date")})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ArchivedLoan {
+    @Id private Long id;
+    @Column(name = "book_id", nullable = false) private Long bookId;
+    @Column(name = "member_id", nullable = false) private Long memberId;
+    @Column(name = "loan_date") private LocalDate loanDate;
+    @Column(name = "due_date", nullable = false) private LocalDate dueDate;
+    @Column(name = "return_date") private LocalDate returnDate;
+    @Column(name = "actual_return_date") private LocalDate actualReturnDate;
+    @Column(name = "fine_amount") private Double fineAmount;
+    @Column(length = 500) private String notes;
+    @Column(name = "created_at") private LocalDateTime createdAt;
+    @Column(name = "archived_at") private LocalDateTime archivedAt;
+}
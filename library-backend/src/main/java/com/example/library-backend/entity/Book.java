@@ -8,7 +8,7 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = @Index(name = "idx_books_title_id", columnList = "title, id"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Book {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
@@ -0,0 +1,19 @@
+package com.example.library-backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Daily checkout and return counts per dimension value, maintained by CirculationAnalyticsService; dimension ALL has a single empty value.
+@Entity
+@Table(name = "circulation_daily", uniqueConstraints = @UniqueConstraint(name = "uk_circulation_daily_dimension_date_value", columnNames = {"dimension", "stat_date", "dim_value"}))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class CirculationDaily {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+    @Column(name = "stat_date", nullable = false) private LocalDate statDate;
+    @Column(nullable = false, length = 16) private String dimension;
+    @Column(name = "dim_value", nullable = false) private String dimValue;
+    @Column(nullable = false) private Long loans;
+    @Column(nullable = false) private Long returns;
+}
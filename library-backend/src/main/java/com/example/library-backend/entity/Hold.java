@@ -0,0 +1,29 @@
+package com.example.library-backend.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "holds", indexes = {@Index(name = "idx_holds_book_status", columnList = "book_id, status"), @Index(name = "idx_holds_member_status", columnList = "member_id, status"),
+        @Index(name = "idx_holds_status_expires_at", columnList = "status, expires_at")})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class Hold {
+    public static final String WAITING = "WAITING", READY = "READY", FULFILLED = "FULFILLED", CANCELLED = "CANCELLED", EXPIRED = "EXPIRED";
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+    @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "book_id", nullable = false) @JsonIgnore private Book book;
+    @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "member_id", nullable = false) @JsonIgnore private Member member;
+    @Column(nullable = false) @Builder.Default private String status = WAITING;
+    @Column(name = "created_at", updatable = false) private LocalDateTime createdAt;
+    @Column(name = "ready_at") private LocalDateTime readyAt;
+    @Column(name = "expires_at") private LocalDateTime expiresAt;
+    @Column(name = "closed_at") private LocalDateTime closedAt;
+
+    @PrePersist protected void onCreate() { createdAt = LocalDateTime.now(); }
+    @JsonProperty("bookId") public Long getBookId() { return book != null ? book.getId() : null; }
+    @JsonProperty("memberId") public Long getMemberId() { return member != null ? member.getId() : null; }
+}
@@ -0,0 +1,19 @@
+package com.example.library-backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Idempotency keys shared between nodes when library.idempotency.persist is on; written and read by IdempotencyService.
+// A row is inserted with status 0 to claim the key before the operation runs and completed with the response afterwards.
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class IdempotencyRecord {
+    @Id @Column(name = "idem_key", length = 400) private String key;
+    @Column(length = 64) private String fingerprint;
+    @Column(nullable = false) private Integer status;
+    @Column(columnDefinition = "text") private String body;
+    @Column(name = "created_at", nullable = false) private LocalDateTime createdAt;
+}
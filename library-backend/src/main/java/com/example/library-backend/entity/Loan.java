@@ -1,5 +1,6 @@
 package com.example.library-backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
@@ -9,18 +10,23 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {@Index(name = "idx_loans_loan_date_id", columnList = "loan_date, id"), @Index(name = "idx_loans_returned_due_date", columnList = "returned, due_date"),
+        @Index(name = "idx_loans_returned_return_date", columnList = "returned, actual_return_date"),
+        @Index(name = "idx_loans_member_returned_book", columnList = "member_id, returned, book_id")})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Loan {
+    public static final double FINE_PER_DAY = 0.50;
+
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
-    @ManyToOne(fetch = FetchType.EAGER) @JoinColumn(name = "book_id", nullable = false) @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) private Book book;
-    @ManyToOne(fetch = FetchType.EAGER) @JoinColumn(name = "member_id", nullable = false) @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) private Member member;
+    @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "book_id", nullable = false) @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) private Book book;
+    @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "member_id", nullable = false) @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) private Member member;
     @Column(name = "loan_date") private LocalDate loanDate;
     @Column(name = "due_date", nullable = false) private LocalDate dueDate;
     @Column(name = "return_date") private LocalDate returnDate;
     @Column(name = "actual_return_date") private LocalDate actualReturnDate;
     @Column(nullable = false) @Builder.Default private Boolean returned = false;
     @Column(name = "fine_amount") private Double fineAmount;
+    @Column(name = "fine_accrued_through") @JsonIgnore private LocalDate fineAccruedThrough;
     @Column(length = 500) private String notes;
     @Column(name = "created_at", updatable = false) private LocalDateTime createdAt;
 
@@ -38,8 +44,10 @@ public class Loan {
         if (!isOverdue() || dueDate == null) return 0;
         return LocalDate.now().toEpochDay() - dueDate.toEpochDay();
     }
+    // Fines are accrued into fineAmount daily by FineAccrualService; this is the exact figure used when a loan is closed.
     @JsonProperty("calculatedFine")
+    public Double getAccruedFine() { return fineAmount != null ? fineAmount : 0.0; }
     public Double calculateFine() { if (!isOverdue()) return 0.0;
         long overdueDays = getDaysOverdue();
-        return overdueDays * 0.50; }
+        return overdueDays * FINE_PER_DAY; }
 }
\ No newline at end of file
@@ -9,15 +9,18 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "members")
+@Table(name = "members", indexes = @Index(name = "idx_members_last_name_id", columnList = "last_name, id"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Member {
+    public static final String STANDARD = "STANDARD";
+
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
     @NotBlank(message = "First name is required") @Column(name = "first_name", nullable = false) private String firstName;
     @NotBlank(message = "Last name is required") @Column(name = "last_name", nullable = false) private String lastName;
     @Email(message = "Email should be valid") @Column(unique = true) private String email;
     private String phone;
     @Column(name = "membership_id", unique = true) private String membershipId;
+    @Column(name = "membership_type") @Builder.Default private String membershipType = STANDARD;
     private String address;
     @Column(name = "date_of_birth") private LocalDate dateOfBirth;
     @Column(name = "created_at", updatable = false) private LocalDateTime createdAt;
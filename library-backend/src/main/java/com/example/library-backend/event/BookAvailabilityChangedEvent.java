@@ -0,0 +1,11 @@
+package com.example.library-backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BookAvailabilityChangedEvent {
+    private final Long bookId;
+    private final int availableCopies;
+}
@@ -0,0 +1,15 @@
+package com.example.library-backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class FineAccruedEvent {
+    private final Long loanId;
+    private final Long memberId;
+    private final long amountCents;
+    private final LocalDate accruedThrough;
+}
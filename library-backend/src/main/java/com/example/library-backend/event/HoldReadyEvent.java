@@ -0,0 +1,14 @@
+package com.example.library-backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class HoldReadyEvent {
+    private final Long holdId;
+    private final Long bookId;
+    private final LocalDateTime expiresAt;
+}
@@ -0,0 +1,15 @@
+package com.example.library-backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class LoanCreatedEvent {
+    private final Long loanId;
+    private final Long bookId;
+    private final Long memberId;
+    private final LocalDate dueDate;
+}
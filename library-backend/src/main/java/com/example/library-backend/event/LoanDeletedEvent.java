@@ -0,0 +1,13 @@
+package com.example.library-backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LoanDeletedEvent {
+    private final Long loanId;
+    private final Long bookId;
+    private final Long memberId;
+    private final boolean returned;
+}
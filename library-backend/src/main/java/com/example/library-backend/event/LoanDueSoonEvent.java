@@ -0,0 +1,13 @@
+package com.example.library-backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class LoanDueSoonEvent {
+    private final Long loanId;
+    private final LocalDate dueDate;
+}
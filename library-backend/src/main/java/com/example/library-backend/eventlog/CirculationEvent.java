@@ -0,0 +1,45 @@
+package com.example.library-backend.eventlog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+// One circulation log record: a fixed 45-byte layout of type, timestamp, ids, a date (due date, or the accrual date
+// for fines) and an amount in cents (the fine at return, or the accrued change).
+@Getter
+@AllArgsConstructor
+public class CirculationEvent {
+    public static final int SIZE = 1 + 8 + 8 + 8 + 8 + 4 + 8;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    public enum Type { LOAN_CREATED, LOAN_RETURNED, LOAN_RENEWED, FINE_ACCRUED }
+
+    private final long offset;
+    private final Type type;
+    private final long timestamp;
+    private final long loanId;
+    private final long bookId;
+    private final long memberId;
+    private final LocalDate date;
+    private final long amountCents;
+
+    public CirculationEvent(Type type, Long loanId, Long bookId, Long memberId, LocalDate date, long amountCents) {
+        this(-1, type, System.currentTimeMillis(), value(loanId), value(bookId), value(memberId), date, amountCents);
+    }
+
+    public byte[] encode() {
+        return ByteBuffer.allocate(SIZE).put((byte) type.ordinal()).putLong(timestamp).putLong(loanId).putLong(bookId).putLong(memberId)
+                .putInt(date == null ? NO_DATE : (int) date.toEpochDay()).putLong(amountCents).array();
+    }
+
+    public static CirculationEvent decode(long offset, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        Type type = Type.values()[buffer.get()]; long timestamp = buffer.getLong(), loanId = buffer.getLong(), bookId = buffer.getLong(), memberId = buffer.getLong();
+        int day = buffer.getInt();
+        return new CirculationEvent(offset, type, timestamp, loanId, bookId, memberId, day == NO_DATE ? null : LocalDate.ofEpochDay(day), buffer.getLong());
+    }
+
+    private static long value(Long id) { return id == null ? 0 : id; }
+}
@@ -0,0 +1,101 @@
+package com.example.library-backend.eventlog;
+
+import com.example.library-backend.event.FineAccruedEvent;
+import com.example.library-backend.event.LoanCreatedEvent;
+import com.example.library-backend.event.LoanRenewedEvent;
+import com.example.library-backend.event.LoanReturnedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes committed circulation changes to a {@link SegmentLog} on local disk so reporting jobs can replay or tail them
+ * sequentially instead of querying the loans table. Writing happens after commit and never fails the request; the log
+ * is a feed, not the system of record.
+ */
+@Service
+public class CirculationEventLog {
+    private static final Logger logger = LoggerFactory.getLogger(CirculationEventLog.class);
+    private static final int MAX_READ = 10000;
+    private static final long MAX_WAIT_MILLIS = 30000;
+
+    @Value("${library.event-log.enabled:true}") private boolean enabled;
+    @Value("${library.event-log.dir:data/circulation-log}") private String directory;
+    @Value("${library.event-log.segment-bytes:67108864}") private int segmentBytes;
+    @Value("${library.event-log.retention-hours:168}") private long retentionHours;
+
+    private SegmentLog log;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) return;
+        log = new SegmentLog(Path.of(directory), segmentBytes);
+        logger.info("Circulation event log at {} holds offsets {} to {} in {} segments", directory, log.getStartOffset(), log.getEndOffset(), log.getSegmentCount());
+    }
+
+    @PreDestroy
+    void close() throws IOException { if (log != null) log.close(); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCreated(LoanCreatedEvent event) { append(new CirculationEvent(CirculationEvent.Type.LOAN_CREATED, event.getLoanId(), event.getBookId(), event.getMemberId(), event.getDueDate(), 0)); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReturned(LoanReturnedEvent event) {
+        append(new CirculationEvent(CirculationEvent.Type.LOAN_RETURNED, event.getLoanId(), event.getBookId(), event.getMemberId(), event.getDueDate(), event.getFineAmount() == null ? 0 : Math.round(event.getFineAmount() * 100)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRenewed(LoanRenewedEvent event) { append(new CirculationEvent(CirculationEvent.Type.LOAN_RENEWED, event.getLoanId(), event.getBookId(), event.getMemberId(), event.getDueDate(), 0)); }
+
+    // Published by FineAccrualService once each chunk has committed.
+    @EventListener
+    public void onFineAccrued(FineAccruedEvent event) { append(new CirculationEvent(CirculationEvent.Type.FINE_ACCRUED, event.getLoanId(), null, event.getMemberId(), event.getAccruedThrough(), event.getAmountCents())); }
+
+    // Events from offset onwards; with waitMillis > 0 and nothing new, waits that long for the next append (tailing).
+    public Map<String, Object> read(long offset, int limit, long waitMillis) throws InterruptedException {
+        if (log == null) throw new IllegalStateException("Circulation event log is disabled");
+        if (waitMillis > 0) log.awaitAppend(offset, Math.min(waitMillis, MAX_WAIT_MILLIS));
+        List<SegmentLog.Record> records = log.read(offset, Math.max(1, Math.min(limit, MAX_READ)));
+        List<CirculationEvent> events = new ArrayList<>(records.size());
+        for (SegmentLog.Record record : records) events.add(CirculationEvent.decode(record.offset(), record.payload()));
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("events", events);
+        page.put("nextOffset", records.isEmpty() ? Math.max(offset, log.getStartOffset()) : records.get(records.size() - 1).nextOffset());
+        page.put("startOffset", log.getStartOffset()); page.put("endOffset", log.getEndOffset());
+        return page;
+    }
+
+    @Scheduled(fixedDelayString = "${library.event-log.flush-ms:1000}")
+    public void flush() { if (log != null) log.flush(); }
+
+    @Scheduled(fixedDelayString = "${library.event-log.retention-check-ms:3600000}")
+    public void applyRetention() {
+        if (log == null) return;
+        try {
+            int deleted = log.deleteSegmentsOlderThan(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours));
+            if (deleted > 0) logger.info("Deleted {} circulation log segments older than {} hours", deleted, retentionHours);
+        } catch (IOException e) {
+            logger.warn("Could not apply circulation log retention: {}", e.getMessage());
+        }
+    }
+
+    private void append(CirculationEvent event) {
+        if (log == null) return;
+        try { log.append(event.encode()); } catch (RuntimeException e) { logger.error("Could not append {} for loan {} to the circulation log: {}", event.getType(), event.getLoanId(), e.getMessage()); }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.library-backend.eventlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of opaque records in memory-mapped segment files. A record is {@code int length, int crc32, payload};
+ * segments are created zero-filled at full size, so a zero length marks the end of the written part, and the length is
+ * written last so a torn append reads as end-of-log on recovery. Offsets are logical byte positions across the whole
+ * log and every segment file is named after the offset of its first record, which makes replay from an offset a map
+ * lookup plus a seek. A single writer appends under the log's lock; any number of readers scan without locking up to
+ * the published end offset.
+ */
+public class SegmentLog implements Closeable {
+    private static final int HEADER = 8;
+    private static final String SUFFIX = ".seg";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private Segment active;
+    private volatile long endOffset;
+
+    public SegmentLog(Path dir, int segmentBytes) throws IOException {
+        if (segmentBytes < 1024) throw new IllegalArgumentException("Segment size must be at least 1024 bytes");
+        this.dir = dir; this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+        List<Long> bases;
+        try (Stream<Path> files = Files.list(dir)) {
+            bases = files.map(path -> path.getFileName().toString()).filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length()))).sorted().toList();
+        }
+        // Closed segments end where the next one starts; only the last one has to be scanned.
+        for (int i = 0; i < bases.size() - 1; i++) {
+            Segment segment = Segment.open(path(bases.get(i)), bases.get(i), false, 0); segment.end = (int) (bases.get(i + 1) - bases.get(i));
+            segments.put(segment.base, segment);
+        }
+        active = bases.isEmpty() ? Segment.open(path(0), 0, true, segmentBytes) : Segment.open(path(bases.get(bases.size() - 1)), bases.get(bases.size() - 1), true, segmentBytes);
+        active.end = recover(active);
+        segments.put(active.base, active);
+        endOffset = active.base + active.end;
+    }
+
+    // Appends one record and returns its offset.
+    public synchronized long append(byte[] payload) {
+        int length = HEADER + payload.length;
+        if (payload.length == 0 || length > segmentBytes) throw new IllegalArgumentException("Record size must be between 1 and " + (segmentBytes - HEADER) + " bytes");
+        if (active.end + length > active.capacity) roll();
+        int position = active.end; MappedByteBuffer buffer = active.buffer;
+        buffer.putInt(position + 4, crc(payload, 0, payload.length)); buffer.put(position + HEADER, payload); buffer.putInt(position, payload.length);
+        active.end = position + length; endOffset = active.base + active.end;
+        notifyAll();
+        return active.base + position;
+    }
+
+    // Reads up to maxRecords records starting at offset; an offset older than the oldest retained segment starts there.
+    public List<Record> read(long offset, int maxRecords) {
+        List<Record> records = new ArrayList<>(); long end = endOffset;
+        Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+        if (entry == null) { entry = segments.firstEntry(); if (entry == null) return records; offset = entry.getKey(); }
+        Segment segment = entry.getValue();
+        while (records.size() < maxRecords && offset < end) {
+            int position = (int) (offset - segment.base);
+            if (position >= segment.end) {
+                Map.Entry<Long, Segment> next = segments.higherEntry(segment.base); if (next == null) break;
+                segment = next.getValue(); offset = segment.base; continue;
+            }
+            int length = segment.buffer.getInt(position);
+            if (length <= 0 || position + HEADER + length > segment.end) throw new IllegalArgumentException("No record starts at offset " + offset);
+            byte[] payload = new byte[length]; segment.buffer.get(position + HEADER, payload);
+            if (crc(payload, 0, length) != segment.buffer.getInt(position + 4)) throw new IllegalArgumentException("No record starts at offset " + offset);
+            records.add(new Record(offset, payload)); offset += HEADER + length;
+        }
+        return records;
+    }
+
+    // Blocks until something is written at or after offset, or the timeout passes; used for tailing.
+    public synchronized boolean awaitAppend(long offset, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (endOffset <= offset) {
+            long remaining = deadline - System.currentTimeMillis(); if (remaining <= 0) return false;
+            wait(remaining);
+        }
+        return true;
+    }
+
+    // Deletes closed segments last written before the cutoff; the active segment is always kept. Segments are picked and
+    // unlinked from the map under the append lock, so a roll cannot hand over one that is being deleted.
+    public int deleteSegmentsOlderThan(long cutoffMillis) throws IOException {
+        List<Segment> expired = new ArrayList<>();
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                if (segment == active || Files.getLastModifiedTime(segment.path).toMillis() >= cutoffMillis) continue;
+                segments.remove(segment.base); expired.add(segment);
+            }
+        }
+        for (Segment segment : expired) { segment.channel.close(); Files.deleteIfExists(segment.path); }
+        return expired.size();
+    }
+
+    public long getStartOffset() { Map.Entry<Long, Segment> first = segments.firstEntry(); return first == null ? 0 : first.getKey(); }
+
+    public long getEndOffset() { return endOffset; }
+
+    public int getSegmentCount() { return segments.size(); }
+
+    public synchronized void flush() { active.buffer.force(); }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active.buffer.force();
+        for (Segment segment : segments.values()) segment.channel.close();
+    }
+
+    private void roll() {
+        active.buffer.force();
+        long base = active.base + active.end;
+        try { active = Segment.open(path(base), base, true, segmentBytes); } catch (IOException e) { throw new UncheckedIOException("Could not create log segment " + path(base), e); }
+        segments.put(base, active);
+    }
+
+    private static int recover(Segment segment) {
+        int position = 0;
+        while (position + HEADER <= segment.capacity) {
+            int length = segment.buffer.getInt(position);
+            if (length <= 0 || position + HEADER + length > segment.capacity) break;
+            byte[] payload = new byte[length]; segment.buffer.get(position + HEADER, payload);
+            if (crc(payload, 0, length) != segment.buffer.getInt(position + 4)) break;
+            position += HEADER + length;
+        }
+        return position;
+    }
+
+    private static int crc(byte[] bytes, int from, int length) { CRC32 crc = new CRC32(); crc.update(bytes, from, length); return (int) crc.getValue(); }
+
+    private Path path(long base) { return dir.resolve(String.format("%020d%s", base, SUFFIX)); }
+
+    public record Record(long offset, byte[] payload) {
+        public long nextOffset() { return offset + HEADER + payload.length; }
+    }
+
+    private static final class Segment {
+        final long base;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        volatile int end;
+
+        private Segment(long base, Path path, FileChannel channel, MappedByteBuffer buffer) { this.base = base; this.path = path; this.channel = channel; this.buffer = buffer; this.capacity = buffer.capacity(); }
+
+        // A writable segment is grown to size; an existing file keeps its own size so a changed setting doesn't truncate it.
+        static Segment open(Path path, long base, boolean writable, int size) throws IOException {
+            FileChannel channel = writable ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE) : FileChannel.open(path, StandardOpenOption.READ);
+            long length = writable ? Math.max(channel.size(), size) : channel.size();
+            return new Segment(base, path, channel, channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+}
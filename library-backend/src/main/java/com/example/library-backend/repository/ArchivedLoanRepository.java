@@ -0,0 +1,19 @@
+package com.example.library-backend.repository;
+
+import com.example.library-backend.dto.LoanSummary;
+import com.example.library-backend.entity.ArchivedLoan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, Long> {
+    String SUMMARY = "SELECT new com.example.library-backend.dto.LoanSummary(a.id, b.id, b.title, m.id, m.firstName, m.lastName, a.loanDate, a.dueDate, a.actualReturnDate, true, a.fineAmount) "
+            + "FROM ArchivedLoan a, Book b, Member m WHERE b.id = a.bookId AND m.id = a.memberId ";
+
+    @Query(SUMMARY + "AND a.memberId = :memberId ORDER BY a.loanDate DESC, a.id DESC") List<LoanSummary> findSummariesByMember(@Param("memberId") Long memberId);
+    @Query(SUMMARY + "AND a.bookId = :bookId ORDER BY a.loanDate DESC, a.id DESC") List<LoanSummary> findSummariesByBook(@Param("bookId") Long bookId);
+}
@@ -1,7 +1,10 @@
 package com.example.library-backend.repository;
 
 import com.example.library-backend.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,9 +19,29 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByGenreContainingIgnoreCase(String genre);
     Optional<Book> findByIsbn(String isbn);
     @Query("SELECT b FROM Book b WHERE b.active = true") List<Book> findByActiveTrue();
+    @Query("SELECT b FROM Book b WHERE b.active = true") Slice<Book> findActiveBooks(Pageable pageable);
+    @Query("SELECT b FROM Book b WHERE b.active = true AND (:availableOnly = false OR b.availableCopies > 0) ORDER BY b.title, b.id")
+    Slice<Book> findFirstPage(@Param("availableOnly") boolean availableOnly, Pageable pageable);
+    @Query("SELECT b FROM Book b WHERE b.active = true AND (:availableOnly = false OR b.availableCopies > 0) AND (b.title > :title OR (b.title = :title AND b.id > :id)) ORDER BY b.title, b.id")
+    Slice<Book> findPageAfter(@Param("availableOnly") boolean availableOnly, @Param("title") String title, @Param("id") Long id, Pageable pageable);
     @Query("SELECT b FROM Book b WHERE b.availableCopies > 0 AND b.active = true") List<Book> findAvailableBooks();
+    @Query("SELECT COUNT(b) FROM Book b WHERE b.availableCopies > 0 AND b.active = true") Long countAvailableBooks();
     @Query("SELECT COUNT(b) FROM Book b WHERE b.active = true") Long countActiveBooks();
     @Query("SELECT b FROM Book b WHERE b.id = :id AND b.active = true") Optional<Book> findByIdAndActiveTrue(@Param("id") Long id);
+    // Single-statement copy accounting: the guard and the change happen together in the database, so concurrent
+    // checkouts cannot oversell and the row lock is only taken by the final statement of the transaction.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1, b.updatedAt = CURRENT_TIMESTAMP WHERE b.id = :id AND b.active = true AND b.availableCopies > 0")
+    int allocateCopy(@Param("id") Long id);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1, b.updatedAt = CURRENT_TIMESTAMP WHERE b.id = :id AND b.availableCopies < b.totalCopies")
+    int releaseCopy(@Param("id") Long id);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + :delta, b.updatedAt = CURRENT_TIMESTAMP WHERE b.id = :id AND b.availableCopies + :delta >= 0 AND b.availableCopies + :delta <= b.totalCopies")
+    int adjustAvailableCopies(@Param("id") Long id, @Param("delta") int delta);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = :total - (b.totalCopies - b.availableCopies), b.totalCopies = :total, b.updatedAt = CURRENT_TIMESTAMP WHERE b.id = :id AND :total >= b.totalCopies - b.availableCopies")
+    int resizeCopies(@Param("id") Long id, @Param("total") int total);
     @Query("SELECT b FROM Book b WHERE (LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(b.author) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(b.genre) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(b.isbn) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND b.active = true")
     List<Book> searchBooks(@Param("keyword") String keyword);
 }
\ No newline at end of file
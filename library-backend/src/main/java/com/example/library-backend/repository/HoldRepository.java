@@ -0,0 +1,28 @@
+package com.example.library-backend.repository;
+
+import com.example.library-backend.entity.Hold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+    @Query("SELECT h FROM Hold h WHERE h.member.id = :memberId ORDER BY h.id DESC") List<Hold> findByMemberId(@Param("memberId") Long memberId);
+    @Query("SELECT COUNT(h) > 0 FROM Hold h WHERE h.book.id = :bookId AND h.member.id = :memberId AND h.status IN ('WAITING', 'READY')")
+    boolean existsOpenHold(@Param("bookId") Long bookId, @Param("memberId") Long memberId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Hold h SET h.status = 'READY', h.readyAt = :now, h.expiresAt = :expiresAt WHERE h.id = :id AND h.status = 'WAITING'")
+    int markReady(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Hold h SET h.status = 'FULFILLED', h.closedAt = :now WHERE h.book.id = :bookId AND h.member.id = :memberId AND h.status = 'READY'")
+    int fulfill(@Param("bookId") Long bookId, @Param("memberId") Long memberId, @Param("now") LocalDateTime now);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Hold h SET h.status = :status, h.closedAt = :now WHERE h.id = :id AND h.status = :expected")
+    int close(@Param("id") Long id, @Param("expected") String expected, @Param("status") String status, @Param("now") LocalDateTime now);
+    @Query("SELECT h.id FROM Hold h WHERE h.status = 'READY' AND h.expiresAt < :now") List<Long> findExpiredReadyIds(@Param("now") LocalDateTime now);
+}
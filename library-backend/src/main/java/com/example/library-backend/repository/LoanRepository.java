@@ -1,24 +1,52 @@
 package com.example.library-backend.repository;
 
+import com.example.library-backend.dto.LoanSummary;
 import com.example.library-backend.entity.Loan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
+    String SUMMARY = "SELECT new com.example.library-backend.dto.LoanSummary(l.id, b.id, b.title, m.id, m.firstName, m.lastName, l.loanDate, l.dueDate, l.actualReturnDate, l.returned, l.fineAmount) "
+            + "FROM Loan l JOIN l.book b JOIN l.member m ";
+
     List<Loan> findByMemberId(Long memberId);
     List<Loan> findByBookId(Long bookId);
     @Query("SELECT l FROM Loan l WHERE l.returned = false") List<Loan> findByReturnedFalse();
     @Query("SELECT l FROM Loan l WHERE l.returned = true") List<Loan> findByReturnedTrue();
     @Query("SELECT l FROM Loan l WHERE l.returned = false AND l.dueDate < :currentDate") List<Loan> findOverdueLoans(@Param("currentDate") LocalDate currentDate);
     @Query("SELECT l FROM Loan l WHERE l.member.id = :memberId AND l.returned = false") List<Loan> findActiveLoansByMember(@Param("memberId") Long memberId);
+    @Query("SELECT l.book.id FROM Loan l WHERE l.member.id = :memberId AND l.returned = false") List<Long> findActiveBookIdsByMember(@Param("memberId") Long memberId);
+    @Query("SELECT COUNT(l) > 0 FROM Loan l WHERE l.member.id = :memberId AND l.book.id = :bookId AND l.returned = false")
+    boolean existsActiveLoan(@Param("memberId") Long memberId, @Param("bookId") Long bookId);
+    @Query("SELECT COUNT(l) FROM Loan l WHERE l.member.id = :memberId AND l.returned = false") long countActiveLoansByMember(@Param("memberId") Long memberId);
+    @EntityGraph(attributePaths = {"book", "member"}) @Query("SELECT l FROM Loan l WHERE l.id = :id") Optional<Loan> findWithDetailsById(@Param("id") Long id);
+    @Query(SUMMARY + "ORDER BY l.id") List<LoanSummary> findAllSummaries();
+    @Query(SUMMARY + "WHERE l.returned = false ORDER BY l.id") List<LoanSummary> findActiveSummaries();
+    @Query(SUMMARY + "WHERE l.returned = false AND l.dueDate < :currentDate ORDER BY l.dueDate, l.id") List<LoanSummary> findOverdueSummaries(@Param("currentDate") LocalDate currentDate);
+    @Query(SUMMARY + "WHERE l.id IN :ids") List<LoanSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+    @Query(SUMMARY + "WHERE m.id = :memberId ORDER BY l.loanDate DESC, l.id DESC") List<LoanSummary> findSummariesByMember(@Param("memberId") Long memberId);
+    @Query(SUMMARY + "WHERE b.id = :bookId ORDER BY l.loanDate DESC, l.id DESC") List<LoanSummary> findSummariesByBook(@Param("bookId") Long bookId);
+    @Query(SUMMARY + "WHERE m.id = :memberId AND l.returned = false ORDER BY l.dueDate, l.id") List<LoanSummary> findActiveSummariesByMember(@Param("memberId") Long memberId);
+    @Query(SUMMARY + "WHERE (:activeOnly = false OR l.returned = false) ORDER BY l.loanDate DESC, l.id DESC")
+    Slice<LoanSummary> findFirstPage(@Param("activeOnly") boolean activeOnly, Pageable pageable);
+    @Query(SUMMARY + "WHERE (:activeOnly = false OR l.returned = false) AND (l.loanDate < :loanDate OR (l.loanDate = :loanDate AND l.id < :id)) ORDER BY l.loanDate DESC, l.id DESC")
+    Slice<LoanSummary> findPageAfter(@Param("activeOnly") boolean activeOnly, @Param("loanDate") LocalDate loanDate, @Param("id") Long id, Pageable pageable);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Loan l SET l.returned = true, l.actualReturnDate = :returnDate, l.fineAmount = :fine WHERE l.id = :id AND l.returned = false")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDate returnDate, @Param("fine") Double fine);
     @Query("SELECT COUNT(l) FROM Loan l WHERE l.returned = false") Long countActiveLoans();
     @Query("SELECT COUNT(l) FROM Loan l WHERE l.returned = false AND l.dueDate < :currentDate") Long countOverdueLoans(@Param("currentDate") LocalDate currentDate);
-    @Query("SELECT COALESCE(SUM(l.fineAmount), 0) FROM Loan l WHERE l.returned = false AND l.dueDate < :currentDate") Double calculateTotalFines(@Param("currentDate") LocalDate currentDate);
+    @Query("SELECT COALESCE(SUM(l.fineAmount), 0) FROM Loan l") Double sumFines();
 }
\ No newline at end of file
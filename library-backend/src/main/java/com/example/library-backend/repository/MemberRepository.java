@@ -1,6 +1,8 @@
 package com.example.library-backend.repository;
 
 import com.example.library-backend.entity.Member;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +16,10 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     Optional<Member> findByEmail(String email);
     Optional<Member> findByMembershipId(String membershipId);
     @Query("SELECT m FROM Member m WHERE m.active = true") List<Member> findByActiveTrue();
+    @Query("SELECT m FROM Member m WHERE m.active = true") Slice<Member> findActiveMembers(Pageable pageable);
+    @Query("SELECT m FROM Member m WHERE m.active = true ORDER BY m.lastName, m.id") Slice<Member> findFirstPage(Pageable pageable);
+    @Query("SELECT m FROM Member m WHERE m.active = true AND (m.lastName > :lastName OR (m.lastName = :lastName AND m.id > :id)) ORDER BY m.lastName, m.id")
+    Slice<Member> findPageAfter(@Param("lastName") String lastName, @Param("id") Long id, Pageable pageable);
     @Query("SELECT m FROM Member m WHERE (LOWER(m.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(m.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(m.email) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(m.membershipId) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND m.active = true")
     List<Member> searchMembers(@Param("keyword") String keyword);
     @Query("SELECT COUNT(m) FROM Member m WHERE m.active = true") Long countActiveMembers();
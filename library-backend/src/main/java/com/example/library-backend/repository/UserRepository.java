@@ -1,7 +1,10 @@
 package com.example.library-backend.repository;
 
 import com.example.library-backend.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,6 +20,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByEmail(String email);
     @Query("SELECT u FROM User u WHERE u.active = true") List<User> findByActiveTrue();
     @Query("SELECT COUNT(u) FROM User u WHERE u.active = true") Long countActiveUsers();
+    @Query("SELECT u FROM User u WHERE u.active = true ORDER BY u.username, u.id") Slice<User> findFirstPage(Pageable pageable);
+    @Query("SELECT u FROM User u WHERE u.active = true AND (u.username > :username OR (u.username = :username AND u.id > :id)) ORDER BY u.username, u.id")
+    Slice<User> findPageAfter(@Param("username") String username, @Param("id") Long id, Pageable pageable);
     @Query("SELECT u FROM User u WHERE u.id = :id AND u.active = true") Optional<User> findByIdAndActiveTrue(@Param("id") Long id);
     @Query("SELECT u FROM User u WHERE u.role = :role AND u.active = true") List<User> findByRole(@Param("role") String role);
+    // Only replaces the hash that was verified, so a password changed in the meantime is left alone.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
\ No newline at end of file
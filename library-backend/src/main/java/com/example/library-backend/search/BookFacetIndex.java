@@ -0,0 +1,186 @@
+package com.example.library-backend.search;
+
+import com.example.library-backend.entity.Book;
+import com.example.library-backend.repository.BookRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmaps (one per facet value) over book attributes. Filters are ANDed across facets and ORed within one,
+ * and facet counts are accumulated in the same pass over the matching ids using dictionary-encoded attribute columns.
+ */
+@Component
+public class BookFacetIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BookFacetIndex.class);
+    public static final String GENRE = "genre", AUTHOR = "author", PUBLISHER = "publisher", DECADE = "decade";
+
+    @Autowired private BookRepository bookRepository;
+    @Value("${library.search.index.enabled:true}") private boolean enabled;
+    @Value("${library.search.index.rebuild-page-size:5000}") private int rebuildPageSize;
+
+    private final Facet genres = new Facet(), authors = new Facet(), publishers = new Facet(), decades = new Facet();
+    private final RoaringBitmap all = new RoaringBitmap(), active = new RoaringBitmap(), available = new RoaringBitmap();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[] genreOf = emptyColumn(1024), authorOf = emptyColumn(1024), publisherOf = emptyColumn(1024), decadeOf = emptyColumn(1024);
+    private volatile long activeCount, activeAvailableCount;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+        long start = System.currentTimeMillis(); ready = false; clear();
+        Page<Book> page = bookRepository.findAll(PageRequest.of(0, rebuildPageSize, Sort.by("id")));
+        while (true) {
+            page.forEach(this::index);
+            if (!page.hasNext()) break;
+            page = bookRepository.findAll(page.nextPageable());
+        }
+        ready = true;
+        logger.info("Built facet bitmaps for {} books in {} ms", all.getLongCardinality(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() { return enabled && ready; }
+
+    public void index(Book book) {
+        if (!enabled || book.getId() == null) return;
+        int id = Math.toIntExact(book.getId());
+        lock.writeLock().lock();
+        try {
+            if (id >= genreOf.length) grow(id);
+            genreOf[id] = genres.move(id, genreOf[id], book.getGenre());
+            authorOf[id] = authors.move(id, authorOf[id], book.getAuthor());
+            publisherOf[id] = publishers.move(id, publisherOf[id], book.getPublisher());
+            decadeOf[id] = decades.move(id, decadeOf[id], decadeLabel(book.getPublicationYear()));
+            all.add(id);
+            boolean wasActive = active.contains(id), wasAvailable = available.contains(id);
+            if (Boolean.TRUE.equals(book.getActive())) active.add(id); else active.remove(id);
+            setAvailable(id, book.getAvailableCopies() != null ? book.getAvailableCopies() : 0);
+            count(id, wasActive, wasAvailable);
+        } finally { lock.writeLock().unlock(); }
+    }
+
+    public void updateAvailability(Long bookId, int availableCopies) {
+        if (!enabled || bookId == null) return;
+        lock.writeLock().lock();
+        try { int id = Math.toIntExact(bookId); if (all.contains(id)) { boolean wasAvailable = available.contains(id); setAvailable(id, availableCopies); count(id, active.contains(id), wasAvailable); } }
+        finally { lock.writeLock().unlock(); }
+    }
+
+    // Active books, and active books with a copy on the shelf; kept as counters so reading them costs nothing.
+    public long getActiveCount() { return activeCount; }
+    public long getActiveAvailableCount() { return activeAvailableCount; }
+
+    public FacetResult query(FacetQuery query, RoaringBitmap restrictTo, int idLimit, int facetLimit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = query.isIncludeInactive() ? all.clone() : active.clone();
+            if (restrictTo != null) result.and(restrictTo);
+            if (!query.getGenres().isEmpty()) result.and(genres.union(query.getGenres()));
+            if (!query.getAuthors().isEmpty()) result.and(authors.union(query.getAuthors()));
+            if (!query.getPublishers().isEmpty()) result.and(publishers.union(query.getPublishers()));
+            if (!query.getDecades().isEmpty()) result.and(decades.union(query.getDecades()));
+            if (hasText(query.getGenreContains())) result.and(genres.unionContaining(query.getGenreContains()));
+            if (hasText(query.getAuthorContains())) result.and(authors.unionContaining(query.getAuthorContains()));
+            if (query.getAvailable() != null) { if (query.getAvailable()) result.and(available); else result.andNot(available); }
+
+            int[] genreCounts = new int[genres.size()], authorCounts = new int[authors.size()], publisherCounts = new int[publishers.size()], decadeCounts = new int[decades.size()];
+            List<Long> ids = new ArrayList<>(Math.min(idLimit, result.getCardinality()));
+            result.forEach((int id) -> {
+                if (genreOf[id] >= 0) genreCounts[genreOf[id]]++;
+                if (authorOf[id] >= 0) authorCounts[authorOf[id]]++;
+                if (publisherOf[id] >= 0) publisherCounts[publisherOf[id]]++;
+                if (decadeOf[id] >= 0) decadeCounts[decadeOf[id]]++;
+                if (ids.size() < idLimit) ids.add((long) id);
+            });
+            Map<String, List<FacetResult.FacetCount>> facets = new LinkedHashMap<>();
+            facets.put(GENRE, genres.top(genreCounts, facetLimit)); facets.put(AUTHOR, authors.top(authorCounts, facetLimit));
+            facets.put(PUBLISHER, publishers.top(publisherCounts, facetLimit)); facets.put(DECADE, decades.top(decadeCounts, facetLimit));
+            return new FacetResult(result.getLongCardinality(), ids, facets, result);
+        } finally { lock.readLock().unlock(); }
+    }
+
+    private void setAvailable(int id, int availableCopies) { if (availableCopies > 0) available.add(id); else available.remove(id); }
+
+    private void count(int id, boolean wasActive, boolean wasAvailable) {
+        boolean isActive = active.contains(id), isAvailable = available.contains(id);
+        activeCount += (isActive ? 1 : 0) - (wasActive ? 1 : 0);
+        activeAvailableCount += (isActive && isAvailable ? 1 : 0) - (wasActive && wasAvailable ? 1 : 0);
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            genres.clear(); authors.clear(); publishers.clear(); decades.clear(); all.clear(); active.clear(); available.clear(); activeCount = 0; activeAvailableCount = 0;
+            genreOf = emptyColumn(1024); authorOf = emptyColumn(1024); publisherOf = emptyColumn(1024); decadeOf = emptyColumn(1024);
+        } finally { lock.writeLock().unlock(); }
+    }
+
+    private void grow(int id) {
+        int capacity = Math.max(genreOf.length * 2, id + 1);
+        genreOf = growColumn(genreOf, capacity); authorOf = growColumn(authorOf, capacity); publisherOf = growColumn(publisherOf, capacity); decadeOf = growColumn(decadeOf, capacity);
+    }
+
+    private static int[] emptyColumn(int capacity) { int[] column = new int[capacity]; Arrays.fill(column, -1); return column; }
+    private static int[] growColumn(int[] column, int capacity) { int[] grown = Arrays.copyOf(column, capacity); Arrays.fill(grown, column.length, capacity, -1); return grown; }
+    private static boolean hasText(String s) { return s != null && !s.isBlank(); }
+    static String decadeLabel(Integer year) { return year == null ? null : (Math.floorDiv(year, 10) * 10) + "s"; }
+    private static String key(String value) { return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT); }
+
+    private static final class Facet {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> labels = new ArrayList<>();
+        private final List<RoaringBitmap> bitmaps = new ArrayList<>();
+
+        int size() { return labels.size(); }
+
+        void clear() { ids.clear(); labels.clear(); bitmaps.clear(); }
+
+        // Moves a book from its previous value to the one it has now and returns the new value id (-1 for none).
+        int move(int book, int previous, String label) {
+            String key = key(label); int next = key == null ? -1 : ids.computeIfAbsent(key, k -> { labels.add(label.trim()); bitmaps.add(new RoaringBitmap()); return labels.size() - 1; });
+            if (previous == next) return next;
+            if (previous >= 0) bitmaps.get(previous).remove(book);
+            if (next >= 0) bitmaps.get(next).add(book);
+            return next;
+        }
+
+        RoaringBitmap union(Collection<String> values) {
+            List<RoaringBitmap> selected = new ArrayList<>();
+            for (String value : values) { Integer id = ids.get(key(value)); if (id != null) selected.add(bitmaps.get(id)); }
+            return RoaringBitmap.or(selected.iterator());
+        }
+
+        RoaringBitmap unionContaining(String fragment) {
+            String needle = key(fragment); List<RoaringBitmap> selected = new ArrayList<>();
+            for (Map.Entry<String, Integer> e : ids.entrySet()) if (e.getKey().contains(needle)) selected.add(bitmaps.get(e.getValue()));
+            return RoaringBitmap.or(selected.iterator());
+        }
+
+        List<FacetResult.FacetCount> top(int[] counts, int limit) {
+            List<FacetResult.FacetCount> top = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) if (counts[i] > 0) top.add(new FacetResult.FacetCount(labels.get(i), counts[i]));
+            top.sort(Comparator.comparingLong(FacetResult.FacetCount::getCount).reversed().thenComparing(FacetResult.FacetCount::getValue));
+            return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.library-backend.search;
+
+import com.example.library-backend.entity.Book;
+import com.example.library-backend.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class BookSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchIndex.class);
+    private static final int TITLE_BOOST = 3, AUTHOR_BOOST = 2, ISBN_BOOST = 2, GENRE_BOOST = 1, DESCRIPTION_BOOST = 1;
+
+    @Autowired private BookRepository bookRepository;
+    @Value("${library.search.index.enabled:true}") private boolean enabled;
+    @Value("${library.search.index.rebuild-page-size:5000}") private int rebuildPageSize;
+    @Value("${library.search.max-results:1000}") private int maxResults;
+
+    private final InvertedIndex index = new InvertedIndex();
+    private final TrigramIndex fuzzyIndex = new TrigramIndex();
+    private final SuggestionIndex suggestions = new SuggestionIndex("title", "author");
+    private volatile boolean ready;
+    // Latest change per book made while a rebuild pages through the table; replayed afterwards so an older row read
+    // earlier cannot overwrite it. Null when no rebuild runs. Guarded by this.
+    private Map<Long, Runnable> buffered;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) { logger.info("Book search index disabled; searches use the database"); return; }
+        long start = System.currentTimeMillis();
+        synchronized (this) { buffered = new HashMap<>(); }
+        try {
+            ready = false; index.clear(); fuzzyIndex.clear(); suggestions.clear();
+            Slice<Book> page = bookRepository.findActiveBooks(PageRequest.of(0, rebuildPageSize, Sort.by("id")));
+            while (true) {
+                page.forEach(this::put);
+                if (!page.hasNext()) break;
+                page = bookRepository.findActiveBooks(page.nextPageable());
+            }
+            synchronized (this) { buffered.values().forEach(Runnable::run); buffered = null; ready = true; }
+        } finally {
+            synchronized (this) { buffered = null; }
+        }
+        logger.info("Indexed {} books for search in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() { return enabled && ready; }
+
+    public void index(Book book) {
+        if (!enabled || book.getId() == null) return;
+        buffer(book.getId(), () -> put(book)); put(book);
+    }
+
+    public void remove(Long bookId) { if (bookId == null) return; buffer(bookId, () -> delete(bookId)); delete(bookId); }
+
+    private synchronized void buffer(Long bookId, Runnable change) { if (buffered != null) buffered.put(bookId, change); }
+
+    private void put(Book book) {
+        if (!Boolean.TRUE.equals(book.getActive())) { delete(book.getId()); return; }
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, TextAnalyzer.tokenize(book.getTitle()), TITLE_BOOST);
+        addTerms(terms, TextAnalyzer.tokenize(book.getAuthor()), AUTHOR_BOOST);
+        addTerms(terms, TextAnalyzer.tokenizeIsbn(book.getIsbn()), ISBN_BOOST);
+        addTerms(terms, TextAnalyzer.tokenize(book.getGenre()), GENRE_BOOST);
+        addTerms(terms, TextAnalyzer.tokenize(book.getDescription()), DESCRIPTION_BOOST);
+        index.put(book.getId(), terms);
+        fuzzyIndex.put(book.getId(), Arrays.asList(book.getTitle(), book.getAuthor(), book.getGenre()));
+        Map<String, String> texts = new HashMap<>(); texts.put("title", book.getTitle()); texts.put("author", book.getAuthor());
+        suggestions.put(book.getId(), texts);
+    }
+
+    private void delete(Long bookId) { index.remove(bookId); fuzzyIndex.remove(bookId); suggestions.remove(bookId); }
+
+    public List<Long> search(String keyword) { return index.search(TextAnalyzer.tokenize(keyword), maxResults); }
+
+    public List<Long> fuzzySearch(String keyword, int limit) { return fuzzyIndex.search(keyword, Math.min(limit, maxResults)); }
+
+    public List<Suggestion> suggest(String prefix, int limit) { return suggestions.suggest(prefix, Math.min(limit, maxResults)); }
+
+    private static void addTerms(Map<String, Integer> terms, List<String> tokens, int boost) {
+        for (String token : tokens) terms.merge(token, boost, Integer::sum);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.library-backend.search;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class FacetQuery {
+    private String search;
+    private List<String> genres = new ArrayList<>();
+    private List<String> authors = new ArrayList<>();
+    private List<String> publishers = new ArrayList<>();
+    private List<String> decades = new ArrayList<>();
+    private String genreContains;
+    private String authorContains;
+    private Boolean available;
+    private boolean includeInactive;
+}
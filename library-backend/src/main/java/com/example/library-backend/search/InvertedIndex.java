@@ -0,0 +1,200 @@
+package com.example.library-backend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index ranked with Okapi BM25. Documents are identified by an external long key and mapped to
+ * dense internal ids so that postings stay as primitive arrays. Every query token must match (AND semantics, like the
+ * substring search it replaces); the last token is also expanded as a prefix so partially typed words still hit.
+ */
+public class InvertedIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_QUERY_TOKENS = 16;
+
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Long, Integer> docByKey = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] docKeys = new long[1024];
+    private int[] docLengths = new int[1024];
+    private String[][] docTerms = new String[1024][];
+    private int nextDoc;
+    private int liveDocs;
+    private long totalLength;
+
+    public void put(long key, Map<String, Integer> termFrequencies) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(key);
+            if (termFrequencies.isEmpty()) return;
+            if (nextDoc == docKeys.length) grow();
+            int doc = nextDoc++; int length = 0; String[] terms = new String[termFrequencies.size()]; int i = 0;
+            for (Map.Entry<String, Integer> e : termFrequencies.entrySet()) {
+                Postings p = postings.get(e.getKey());
+                if (p == null) { p = new Postings(); postings.put(e.getKey(), p); terms[i++] = e.getKey(); }
+                else terms[i++] = postings.ceilingKey(e.getKey());
+                p.add(doc, e.getValue()); length += e.getValue();
+            }
+            docKeys[doc] = key; docLengths[doc] = length; docTerms[doc] = terms; live.set(doc);
+            docByKey.put(key, doc); liveDocs++; totalLength += length;
+        } finally { lock.writeLock().unlock(); }
+    }
+
+    public boolean remove(long key) {
+        lock.writeLock().lock();
+        try { return removeInternal(key); } finally { lock.writeLock().unlock(); }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear(); docByKey.clear(); live.clear(); nextDoc = 0; liveDocs = 0; totalLength = 0;
+            docKeys = new long[1024]; docLengths = new int[1024]; docTerms = new String[1024][];
+        } finally { lock.writeLock().unlock(); }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try { return liveDocs; } finally { lock.readLock().unlock(); }
+    }
+
+    public boolean contains(long key) {
+        lock.readLock().lock();
+        try { return docByKey.containsKey(key); } finally { lock.readLock().unlock(); }
+    }
+
+    public List<Long> search(List<String> tokens, int limit) {
+        List<Long> results = new ArrayList<>();
+        Set<String> distinct = new LinkedHashSet<>(tokens);
+        if (distinct.isEmpty() || limit <= 0) return results;
+        List<String> queryTokens = new ArrayList<>(distinct);
+        if (queryTokens.size() > MAX_QUERY_TOKENS) queryTokens = queryTokens.subList(0, MAX_QUERY_TOKENS);
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) return results;
+            List<List<Postings>> groups = new ArrayList<>(); List<long[]> groupSizes = new ArrayList<>();
+            for (int g = 0; g < queryTokens.size(); g++) {
+                List<Postings> group = expand(queryTokens.get(g), g == queryTokens.size() - 1);
+                if (group.isEmpty()) return results;
+                long size = 0; for (Postings p : group) size += p.size;
+                groups.add(group); groupSizes.add(new long[]{g, size});
+            }
+            // Score the most selective group first; other groups only refine the candidates it produced.
+            groupSizes.sort(Comparator.comparingLong(s -> s[1]));
+            float avgLength = (float) totalLength / liveDocs; int fullMask = (1 << groups.size()) - 1;
+            Map<Integer, Hit> hits = new HashMap<>();
+            for (int order = 0; order < groupSizes.size(); order++) {
+                int g = (int) groupSizes.get(order)[0];
+                for (Postings p : groups.get(g)) {
+                    float idf = (float) Math.log(1 + (liveDocs - p.live + 0.5) / (p.live + 0.5));
+                    for (int i = 0; i < p.size; i++) {
+                        int doc = p.docs[i]; if (!live.get(doc)) continue;
+                        Hit hit = hits.get(doc);
+                        if (hit == null) { if (order > 0) continue; hit = new Hit(docKeys[doc]); hits.put(doc, hit); }
+                        int tf = p.freqs[i];
+                        hit.score += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * docLengths[doc] / avgLength));
+                        hit.mask |= 1 << g;
+                    }
+                }
+            }
+            PriorityQueue<Hit> top = new PriorityQueue<>(Hit.RANKING.reversed());
+            for (Hit hit : hits.values()) {
+                if (hit.mask != fullMask) continue;
+                top.offer(hit); if (top.size() > limit) top.poll();
+            }
+            List<Hit> ranked = new ArrayList<>(top); ranked.sort(Hit.RANKING);
+            for (Hit hit : ranked) results.add(hit.key);
+            return results;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    private List<Postings> expand(String token, boolean prefix) {
+        List<Postings> group = new ArrayList<>();
+        Postings exact = postings.get(token); if (exact != null && exact.live > 0) group.add(exact);
+        if (!prefix) return group;
+        for (Map.Entry<String, Postings> e : postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+            if (group.size() >= MAX_PREFIX_EXPANSIONS) break;
+            if (e.getValue().live > 0) group.add(e.getValue());
+        }
+        return group;
+    }
+
+    private boolean removeInternal(long key) {
+        Integer doc = docByKey.remove(key); if (doc == null) return false;
+        live.clear(doc); liveDocs--; totalLength -= docLengths[doc];
+        for (String term : docTerms[doc]) {
+            Postings p = postings.get(term); if (p == null) continue;
+            p.live--;
+            if (p.live == 0) postings.remove(term);
+            else if (p.size - p.live > p.size / 2) p.compact(live);
+        }
+        docTerms[doc] = null;
+        if (nextDoc - liveDocs > Math.max(4096, liveDocs)) renumber();
+        return true;
+    }
+
+    // Reclaims internal ids left behind by updates and deletes; remapping is monotonic so postings stay sorted.
+    private void renumber() {
+        int[] remap = new int[nextDoc]; int next = 0;
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) remap[doc] = next++;
+        long[] keys = new long[Math.max(1024, next * 2)]; int[] lengths = new int[keys.length]; String[][] terms = new String[keys.length][];
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            int to = remap[doc]; keys[to] = docKeys[doc]; lengths[to] = docLengths[doc]; terms[to] = docTerms[doc]; docByKey.put(docKeys[doc], to);
+        }
+        for (Postings p : postings.values()) p.remap(live, remap);
+        docKeys = keys; docLengths = lengths; docTerms = terms; nextDoc = next;
+        live.clear(); live.set(0, next);
+    }
+
+    private void grow() {
+        int capacity = docKeys.length * 2;
+        docKeys = Arrays.copyOf(docKeys, capacity); docLengths = Arrays.copyOf(docLengths, capacity); docTerms = Arrays.copyOf(docTerms, capacity);
+    }
+
+    private static final class Hit {
+        static final Comparator<Hit> RANKING = Comparator.<Hit>comparingDouble(h -> -h.score).thenComparingLong(h -> h.key);
+        final long key;
+        float score;
+        int mask;
+
+        Hit(long key) { this.key = key; }
+    }
+
+    private static final class Postings {
+        int[] docs = new int[2];
+        int[] freqs = new int[2];
+        int size;
+        int live;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) { docs = Arrays.copyOf(docs, size * 2); freqs = Arrays.copyOf(freqs, size * 2); }
+            docs[size] = doc; freqs[size] = freq; size++; live++;
+        }
+
+        void compact(BitSet liveDocs) {
+            int n = 0;
+            for (int i = 0; i < size; i++) if (liveDocs.get(docs[i])) { docs[n] = docs[i]; freqs[n] = freqs[i]; n++; }
+            size = n; live = n;
+        }
+
+        void remap(BitSet liveDocs, int[] remap) {
+            int n = 0;
+            for (int i = 0; i < size; i++) if (liveDocs.get(docs[i])) { docs[n] = remap[docs[i]]; freqs[n] = freqs[i]; n++; }
+            size = n; live = n;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.library-backend.search;
+
+import com.example.library-backend.entity.Member;
+import com.example.library-backend.repository.MemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class MemberSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(MemberSearchIndex.class);
+
+    @Autowired private MemberRepository memberRepository;
+    @Value("${library.search.index.enabled:true}") private boolean enabled;
+    @Value("${library.search.index.rebuild-page-size:5000}") private int rebuildPageSize;
+    @Value("${library.search.max-results:1000}") private int maxResults;
+
+    private final TrigramIndex fuzzyIndex = new TrigramIndex();
+    private final SuggestionIndex suggestions = new SuggestionIndex("name", "membershipId", "email");
+    private volatile boolean ready;
+    // Latest change per member made while a rebuild pages through the table; replayed afterwards. Guarded by this.
+    private Map<Long, Runnable> buffered;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+        long start = System.currentTimeMillis();
+        synchronized (this) { buffered = new HashMap<>(); }
+        try {
+            ready = false; fuzzyIndex.clear(); suggestions.clear();
+            Slice<Member> page = memberRepository.findActiveMembers(PageRequest.of(0, rebuildPageSize, Sort.by("id")));
+            while (true) {
+                page.forEach(this::put);
+                if (!page.hasNext()) break;
+                page = memberRepository.findActiveMembers(page.nextPageable());
+            }
+            synchronized (this) { buffered.values().forEach(Runnable::run); buffered = null; ready = true; }
+        } finally {
+            synchronized (this) { buffered = null; }
+        }
+        logger.info("Indexed {} members for search in {} ms", fuzzyIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() { return enabled && ready; }
+
+    public void index(Member member) {
+        if (!enabled || member.getId() == null) return;
+        buffer(member.getId(), () -> put(member)); put(member);
+    }
+
+    public void remove(Long memberId) { if (memberId == null) return; buffer(memberId, () -> delete(memberId)); delete(memberId); }
+
+    private synchronized void buffer(Long memberId, Runnable change) { if (buffered != null) buffered.put(memberId, change); }
+
+    private void put(Member member) {
+        if (!Boolean.TRUE.equals(member.getActive())) { delete(member.getId()); return; }
+        fuzzyIndex.put(member.getId(), Arrays.asList(member.getFirstName(), member.getLastName(), member.getEmail(), member.getMembershipId()));
+        Map<String, String> texts = new HashMap<>(); texts.put("name", fullName(member)); texts.put("membershipId", member.getMembershipId()); texts.put("email", member.getEmail());
+        suggestions.put(member.getId(), texts);
+    }
+
+    private void delete(Long memberId) { fuzzyIndex.remove(memberId); suggestions.remove(memberId); }
+
+    public List<Long> fuzzySearch(String keyword, int limit) { return fuzzyIndex.search(keyword, Math.min(limit, maxResults)); }
+
+    public List<Suggestion> suggest(String prefix, int limit) { return suggestions.suggest(prefix, Math.min(limit, maxResults)); }
+
+    private static String fullName(Member member) {
+        String first = member.getFirstName() != null ? member.getFirstName().trim() : "", last = member.getLastName() != null ? member.getLastName().trim() : "";
+        return (first + " " + last).trim();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.library-backend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Path-compressed trie of weighted completions. Every node caches the highest weight found in its subtree, so top-N
+ * lookups run best-first and only expand the branches that can still beat the current results. Weights are reference
+ * counts: the same key added twice (e.g. an author of two books) carries weight 2 and disappears when it drops to 0.
+ */
+public class RadixTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node("");
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    public void add(String key, String display, long weight) {
+        if (key == null || key.isEmpty() || weight <= 0) return;
+        lock.writeLock().lock();
+        try { insert(key, display, weight); } finally { lock.writeLock().unlock(); }
+    }
+
+    public void remove(String key, long weight) {
+        if (key == null || key.isEmpty() || weight <= 0) return;
+        lock.writeLock().lock();
+        try { delete(key, weight); } finally { lock.writeLock().unlock(); }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try { root.children = NO_CHILDREN; root.maxWeight = 0; size = 0; } finally { lock.writeLock().unlock(); }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try { return size; } finally { lock.readLock().unlock(); }
+    }
+
+    public List<Completion> top(String prefix, int limit) {
+        List<Completion> results = new ArrayList<>();
+        if (prefix == null || limit <= 0) return results;
+        lock.readLock().lock();
+        try {
+            Node node = root; int i = 0;
+            while (i < prefix.length()) {
+                Node child = node.child(prefix.charAt(i)); if (child == null) return results;
+                int common = commonPrefix(child.edge, prefix, i);
+                if (i + common == prefix.length()) { node = child; break; }
+                if (common < child.edge.length()) return results;
+                i += common; node = child;
+            }
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.ORDER);
+            queue.add(new Candidate(node, node.maxWeight, false));
+            while (!queue.isEmpty() && results.size() < limit) {
+                Candidate next = queue.poll();
+                if (next.value) { results.add(new Completion(next.node.display, next.node.weight)); continue; }
+                if (next.node.weight > 0) queue.add(new Candidate(next.node, next.node.weight, true));
+                for (Node child : next.node.children) queue.add(new Candidate(child, child.maxWeight, false));
+            }
+            return results;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    private void insert(String key, String display, long weight) {
+        List<Node> path = new ArrayList<>(); Node node = root; path.add(node); int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) { child = new Node(key.substring(i)); node.addChild(child); path.add(child); node = child; break; }
+            int common = commonPrefix(child.edge, key, i);
+            if (common < child.edge.length()) {
+                Node split = new Node(child.edge.substring(0, common));
+                child.edge = child.edge.substring(common); split.children = new Node[]{child}; split.maxWeight = child.maxWeight;
+                node.replaceChild(child, split); child = split;
+            }
+            node = child; path.add(node); i += common;
+        }
+        if (node.weight == 0) { node.display = display != null ? display : key; size++; }
+        node.weight += weight;
+        for (int p = path.size() - 1; p >= 0; p--) path.get(p).maxWeight = Math.max(path.get(p).maxWeight, node.weight);
+    }
+
+    private void delete(String key, long weight) {
+        List<Node> path = new ArrayList<>(); Node node = root; path.add(node); int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i)); if (child == null) return;
+            int common = commonPrefix(child.edge, key, i); if (common < child.edge.length()) return;
+            node = child; path.add(node); i += common;
+        }
+        if (node.weight == 0) return;
+        node.weight = Math.max(0, node.weight - weight);
+        if (node.weight == 0) { node.display = null; size--; }
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node current = path.get(p);
+            if (p > 0 && current.weight == 0) {
+                Node parent = path.get(p - 1);
+                if (current.children.length == 0) { parent.removeChild(current); continue; }
+                if (current.children.length == 1) { Node only = current.children[0]; only.edge = current.edge + only.edge; parent.replaceChild(current, only); continue; }
+            }
+            current.recomputeMax();
+        }
+    }
+
+    private static int commonPrefix(String edge, String key, int offset) {
+        int max = Math.min(edge.length(), key.length() - offset), n = 0;
+        while (n < max && edge.charAt(n) == key.charAt(offset + n)) n++;
+        return n;
+    }
+
+    public static final class Completion {
+        private final String text;
+        private final long weight;
+
+        Completion(String text, long weight) { this.text = text; this.weight = weight; }
+
+        public String getText() { return text; }
+        public long getWeight() { return weight; }
+    }
+
+    private static final class Candidate {
+        static final Comparator<Candidate> ORDER = Comparator.<Candidate>comparingLong(c -> -c.priority).thenComparing(c -> !c.value);
+        final Node node;
+        final long priority;
+        final boolean value;
+
+        Candidate(Node node, long priority, boolean value) { this.node = node; this.priority = priority; this.value = value; }
+    }
+
+    private static final class Node {
+        String edge;
+        Node[] children = NO_CHILDREN;
+        String display;
+        long weight;
+        long maxWeight;
+
+        Node(String edge) { this.edge = edge; }
+
+        Node child(char c) {
+            int lo = 0, hi = children.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1; char m = children[mid].edge.charAt(0);
+                if (m < c) lo = mid + 1; else if (m > c) hi = mid - 1; else return children[mid];
+            }
+            return null;
+        }
+
+        void addChild(Node child) {
+            int at = 0; char c = child.edge.charAt(0);
+            while (at < children.length && children[at].edge.charAt(0) < c) at++;
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at); grown[at] = child; System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+        }
+
+        void replaceChild(Node previous, Node next) { for (int i = 0; i < children.length; i++) if (children[i] == previous) { children[i] = next; return; } }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) if (children[i] == child) {
+                Node[] shrunk = Arrays.copyOf(children, children.length - 1); System.arraycopy(children, i + 1, shrunk, i, children.length - i - 1);
+                children = shrunk.length == 0 ? NO_CHILDREN : shrunk; return;
+            }
+        }
+
+        void recomputeMax() { long max = weight; for (Node child : children) max = Math.max(max, child.maxWeight); maxWeight = max; }
+    }
+}
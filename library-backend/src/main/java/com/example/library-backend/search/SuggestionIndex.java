@@ -0,0 +1,65 @@
+package com.example.library-backend.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typed autocomplete over entity fields, one {@link RadixTrie} per field type. Each text is also reachable from the
+ * start of its later words, so "gats" completes "The Great Gatsby" and "orw" completes "George Orwell".
+ */
+public class SuggestionIndex {
+    private static final int MAX_WORD_STARTS = 4;
+    private static final char SEPARATOR = '\u0001';
+
+    private final Map<String, RadixTrie> tries = new LinkedHashMap<>();
+    private final Map<Long, Map<String, String>> contributions = new HashMap<>();
+
+    public SuggestionIndex(String... types) { for (String type : types) tries.put(type, new RadixTrie()); }
+
+    public synchronized void put(long id, Map<String, String> texts) {
+        removeInternal(id);
+        Map<String, String> added = new HashMap<>();
+        for (Map.Entry<String, String> e : texts.entrySet()) {
+            RadixTrie trie = tries.get(e.getKey()); if (trie == null || e.getValue() == null || e.getValue().isBlank()) continue;
+            String display = e.getValue().trim();
+            for (String key : keys(display)) trie.add(key, display, 1);
+            added.put(e.getKey(), display);
+        }
+        if (!added.isEmpty()) contributions.put(id, added);
+    }
+
+    public synchronized void remove(long id) { removeInternal(id); }
+
+    public synchronized void clear() { contributions.clear(); tries.values().forEach(RadixTrie::clear); }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = TextAnalyzer.normalize(prefix); List<Suggestion> merged = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) return merged;
+        for (Map.Entry<String, RadixTrie> e : tries.entrySet()) {
+            Set<String> seen = new LinkedHashSet<>();
+            for (RadixTrie.Completion c : e.getValue().top(key, limit * 2)) if (seen.add(c.getText())) merged.add(new Suggestion(c.getText(), e.getKey(), c.getWeight()));
+        }
+        merged.sort(Comparator.comparingLong(Suggestion::getWeight).reversed().thenComparing(s -> s.getText().length()).thenComparing(Suggestion::getText));
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    private void removeInternal(long id) {
+        Map<String, String> previous = contributions.remove(id); if (previous == null) return;
+        for (Map.Entry<String, String> e : previous.entrySet()) for (String key : keys(e.getValue())) tries.get(e.getKey()).remove(key, 1);
+    }
+
+    private static Set<String> keys(String display) {
+        Set<String> keys = new LinkedHashSet<>(); String normalized = TextAnalyzer.normalize(display);
+        if (normalized.isEmpty()) return keys;
+        // Word-start keys carry the full text after a separator so different texts sharing a word stay distinct entries.
+        keys.add(normalized + SEPARATOR + normalized);
+        for (int i = normalized.indexOf(' '); i >= 0 && keys.size() <= MAX_WORD_STARTS; i = normalized.indexOf(' ', i + 1)) keys.add(normalized.substring(i + 1) + SEPARATOR + normalized);
+        return keys;
+    }
+}
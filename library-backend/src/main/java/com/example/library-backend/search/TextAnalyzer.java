@@ -0,0 +1,41 @@
+package com.example.library-backend.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public final class TextAnalyzer {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private TextAnalyzer() {}
+
+    // Lower-cases, strips accents and collapses everything that is not a letter or digit into a single space.
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) return "";
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(folded.length()); boolean space = true;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) { sb.append(c); space = false; }
+            else if (!space) { sb.append(' '); space = true; }
+        }
+        int len = sb.length(); if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>(); String normalized = normalize(text);
+        if (normalized.isEmpty()) return tokens;
+        for (String token : normalized.split(" ")) if (!token.isEmpty()) tokens.add(token);
+        return tokens;
+    }
+
+    // ISBNs are indexed both as their hyphen-separated groups and as one compact digit string.
+    public static List<String> tokenizeIsbn(String isbn) {
+        List<String> tokens = tokenize(isbn);
+        if (tokens.size() > 1) tokens.add(String.join("", tokens));
+        return tokens;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.library-backend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant lookup. Distinct words are indexed by their padded character trigrams; a query word only considers
+ * vocabulary words that share enough trigrams to be within the allowed number of edits (the q-gram lemma), and those
+ * candidates are then confirmed with a bounded Damerau-Levenshtein distance. Matching words map back to documents,
+ * which are ranked by their average word similarity. Every query word must match some word of a document.
+ */
+public class TrigramIndex {
+    private static final int MAX_QUERY_TOKENS = 8;
+
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    private final Map<Long, int[]> gramPostings = new HashMap<>();
+    private final Map<Long, int[]> docWords = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[1024]);
+    private long[][] wordDocs = new long[1024][];
+    private int[] wordDocCounts = new int[1024];
+
+    public void put(long key, Collection<String> texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String text : texts) tokens.addAll(TextAnalyzer.tokenize(text));
+        lock.writeLock().lock();
+        try {
+            removeInternal(key);
+            if (tokens.isEmpty()) return;
+            int[] ids = new int[tokens.size()]; int i = 0;
+            for (String token : tokens) { int word = wordId(token); ids[i++] = word; addDoc(word, key); }
+            docWords.put(key, ids);
+        } finally { lock.writeLock().unlock(); }
+    }
+
+    public boolean remove(long key) {
+        lock.writeLock().lock();
+        try { return removeInternal(key); } finally { lock.writeLock().unlock(); }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try { wordIds.clear(); words.clear(); gramPostings.clear(); docWords.clear(); wordDocs = new long[1024][]; wordDocCounts = new int[1024]; }
+        finally { lock.writeLock().unlock(); }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try { return docWords.size(); } finally { lock.readLock().unlock(); }
+    }
+
+    public List<Long> search(String query, int limit) {
+        List<Long> results = new ArrayList<>();
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextAnalyzer.tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) return results;
+        if (tokens.size() > MAX_QUERY_TOKENS) tokens = tokens.subList(0, MAX_QUERY_TOKENS);
+        lock.readLock().lock();
+        try {
+            Map<Long, float[]> docs = null;
+            for (String token : tokens) {
+                Map<Long, Float> matches = matchDocs(token);
+                if (matches.isEmpty()) return results;
+                if (docs == null) { docs = new HashMap<>(); for (Map.Entry<Long, Float> e : matches.entrySet()) docs.put(e.getKey(), new float[]{e.getValue()}); }
+                else { docs.keySet().retainAll(matches.keySet()); for (Map.Entry<Long, float[]> e : docs.entrySet()) e.getValue()[0] += matches.get(e.getKey()); }
+                if (docs.isEmpty()) return results;
+            }
+            Comparator<Map.Entry<Long, float[]>> ranking = Comparator.<Map.Entry<Long, float[]>>comparingDouble(e -> -e.getValue()[0]).thenComparingLong(Map.Entry::getKey);
+            PriorityQueue<Map.Entry<Long, float[]>> top = new PriorityQueue<>(ranking.reversed());
+            for (Map.Entry<Long, float[]> e : docs.entrySet()) { top.offer(e); if (top.size() > limit) top.poll(); }
+            List<Map.Entry<Long, float[]>> ranked = new ArrayList<>(top); ranked.sort(ranking);
+            for (Map.Entry<Long, float[]> e : ranked) results.add(e.getKey());
+            return results;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    // Best similarity per document for one query word, in [0, 1].
+    private Map<Long, Float> matchDocs(String token) {
+        Map<Long, Float> matches = new HashMap<>();
+        int maxEdits = maxEdits(token.length()); long[] grams = trigrams(token);
+        // An adjacent transposition, one edit under the OSA distance below, can change up to four trigrams.
+        int required = Math.max(1, grams.length - 4 * maxEdits);
+        int[] counts = scratch.get(); if (counts.length < words.size()) { counts = new int[words.size() * 2]; scratch.set(counts); }
+        int[] touched = new int[64]; int touchedSize = 0;
+        for (long gram : grams) {
+            int[] posting = gramPostings.get(gram); if (posting == null) continue;
+            for (int i = 1; i <= posting[0]; i++) {
+                int word = posting[i];
+                if (counts[word]++ == 0) { if (touchedSize == touched.length) touched = Arrays.copyOf(touched, touchedSize * 2); touched[touchedSize++] = word; }
+            }
+        }
+        for (int i = 0; i < touchedSize; i++) {
+            int word = touched[i]; int shared = counts[word]; counts[word] = 0;
+            if (shared < required || wordDocCounts[word] == 0) continue;
+            String candidate = words.get(word);
+            if (Math.abs(candidate.length() - token.length()) > maxEdits) continue;
+            int distance = boundedDistance(token, candidate, maxEdits); if (distance > maxEdits) continue;
+            float similarity = 1f - (float) distance / Math.max(token.length(), candidate.length());
+            long[] docs = wordDocs[word];
+            for (int d = 0; d < wordDocCounts[word]; d++) matches.merge(docs[d], similarity, Math::max);
+        }
+        return matches;
+    }
+
+    static int maxEdits(int length) { return length <= 2 ? 0 : length <= 5 ? 1 : 2; }
+
+    // Optimal string alignment distance; returns max + 1 as soon as every cell of a row exceeds the bound.
+    static int boundedDistance(String a, String b, int max) {
+        int n = a.length(), m = b.length(); int[] prev2 = new int[m + 1], prev = new int[m + 1], cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i; int rowMin = cur[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) v = Math.min(v, prev2[j - 2] + 1);
+                cur[j] = v; rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max) return max + 1;
+            int[] t = prev2; prev2 = prev; prev = cur; cur = t;
+        }
+        return prev[m];
+    }
+
+    // Words are padded as "$$word$" so short words and word boundaries still produce trigrams.
+    static long[] trigrams(String word) {
+        String padded = "\u0001\u0001" + word + "\u0001"; long[] grams = new long[padded.length() - 2]; int n = 0;
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            long gram = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            boolean seen = false; for (int j = 0; j < n; j++) if (grams[j] == gram) { seen = true; break; }
+            if (!seen) grams[n++] = gram;
+        }
+        return n == grams.length ? grams : Arrays.copyOf(grams, n);
+    }
+
+    private int wordId(String token) {
+        Integer id = wordIds.get(token); if (id != null) return id;
+        int word = words.size(); words.add(token); wordIds.put(token, word);
+        if (word == wordDocs.length) { wordDocs = Arrays.copyOf(wordDocs, word * 2); wordDocCounts = Arrays.copyOf(wordDocCounts, word * 2); }
+        for (long gram : trigrams(token)) {
+            int[] posting = gramPostings.get(gram);
+            if (posting == null) posting = new int[4];
+            else if (posting[0] + 1 == posting.length) posting = Arrays.copyOf(posting, posting.length * 2);
+            posting[++posting[0]] = word; gramPostings.put(gram, posting);
+        }
+        return word;
+    }
+
+    private void addDoc(int word, long key) {
+        long[] docs = wordDocs[word]; int count = wordDocCounts[word];
+        if (docs == null) docs = new long[2]; else if (count == docs.length) docs = Arrays.copyOf(docs, count * 2);
+        docs[count] = key; wordDocs[word] = docs; wordDocCounts[word] = count + 1;
+    }
+
+    private boolean removeInternal(long key) {
+        int[] ids = docWords.remove(key); if (ids == null) return false;
+        for (int word : ids) {
+            long[] docs = wordDocs[word]; int count = wordDocCounts[word];
+            for (int i = 0; i < count; i++) if (docs[i] == key) { docs[i] = docs[count - 1]; wordDocCounts[word] = count - 1; break; }
+        }
+        return true;
+    }
+}
@@ -2,9 +2,13 @@ package com.example.library-backend.security;
 
 import com.example.library-backend.entity.User;
 import com.example.library-backend.repository.UserRepository;
+import com.example.library-backend.util.BoundedTtlCache;
+import com.example.library-backend.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,6 +20,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.Collection;
 import java.util.Collections;
 
+/**
+ * Loads users for authentication through a bounded TTL cache, so the JWT filter does not hit the database on every
+ * request. UserService evicts a user whenever their password, role, username or active flag changes, both at once and
+ * again after commit so a concurrent load cannot put the old row back; the TTL only bounds staleness from writes that
+ * bypass the service. Callers get a copy of the cached entry because authentication erases credentials in place.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
@@ -24,10 +34,27 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${library.security.user-cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${library.security.user-cache.ttl-ms:300000}")
+    private long cacheTtlMillis;
+
+    private BoundedTtlCache<String, UserDetails> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedTtlCache<>(cacheMaxEntries, cacheTtlMillis);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        logger.info("Attempting to load user: {}", username);
+        UserDetails cached = cache.get(username);
+        if (cached != null) {
+            return org.springframework.security.core.userdetails.User.withUserDetails(cached).build();
+        }
+        logger.debug("Attempting to load user: {}", username);
         
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> {
@@ -35,7 +62,7 @@ public class CustomUserDetailsService implements UserDetailsService {
                     return new UsernameNotFoundException("User not found: " + username);
                 });
 
-        logger.info("Found user: {} with role: {} (active: {})", 
+        logger.debug("Found user: {} with role: {} (active: {})", 
             user.getUsername(), user.getRole(), user.getActive());
 
         if (!user.getActive()) {
@@ -43,17 +70,26 @@ public class CustomUserDetailsService implements UserDetailsService {
             throw new UsernameNotFoundException("User account is inactive: " + username);
         }
 
-        logger.info("Creating UserDetails for: {}", username);
-        return new org.springframework.security.core.userdetails.User(
+        logger.debug("Creating UserDetails for: {}", username);
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
                 user.getPassword(),
                 true, true, true, true,
                 getAuthorities(user.getRole())
         );
+        cache.put(username, userDetails);
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
+    }
+
+    // Drops the cached user now and again once the surrounding transaction commits.
+    public void evict(String username) {
+        if (username == null) return;
+        cache.remove(username);
+        TransactionHooks.afterCommit(() -> cache.remove(username));
     }
 
     private Collection<? extends GrantedAuthority> getAuthorities(String role) {
-        logger.info("Granting authority: {}", role);
+        logger.debug("Granting authority: {}", role);
         return Collections.singletonList(new SimpleGrantedAuthority(role));
     }
 }
\ No newline at end of file
@@ -26,17 +26,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Override protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         try { String jwt = getJwtFromRequest(request); if (!StringUtils.hasText(jwt)) { filterChain.doFilter(request, response); return; }
-            String username = jwtUtil.extractUsername(jwt); if (!StringUtils.hasText(username)) { filterChain.doFilter(request, response); return; }
-            if (SecurityContextHolder.getContext().getAuthentication() == null) { authenticateUser(request, jwt, username); }
+            String username = jwtUtil.verify(jwt); if (!StringUtils.hasText(username)) { filterChain.doFilter(request, response); return; }
+            if (SecurityContextHolder.getContext().getAuthentication() == null) { authenticateUser(request, username); }
         } catch (Exception e) { logger.error("Error processing JWT authentication for request: {}", request.getRequestURI(), e); } filterChain.doFilter(request, response);
     }
 
     private String getJwtFromRequest(HttpServletRequest request) { String bearerToken = request.getHeader(AUTHORIZATION_HEADER);
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith(BEARER_PREFIX)) return bearerToken.substring(BEARER_PREFIX.length()); return null; }
 
-    private void authenticateUser(HttpServletRequest request, String jwt, String username) {
-        try { if (!jwtUtil.validateToken(jwt)) { logger.warn("Invalid JWT token for user: {}", username); return; }
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username); if (userDetails == null || !userDetails.isEnabled()) return;
+    private void authenticateUser(HttpServletRequest request, String username) {
+        try { UserDetails userDetails = userDetailsService.loadUserByUsername(username); if (userDetails == null || !userDetails.isEnabled()) return;
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request)); SecurityContextHolder.getContext().setAuthentication(authentication);
         } catch (Exception e) { logger.error("Error during user authentication for: {}", username, e); }
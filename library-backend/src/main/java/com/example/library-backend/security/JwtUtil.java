@@ -1,7 +1,9 @@
 package com.example.library-backend.security;
 
+import com.example.library-backend.util.BoundedTtlCache;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +11,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,7 +30,28 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
+    @Value("${jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${jwt.cache.max-ttl-ms:900000}")
+    private long cacheMaxTtlMillis;
+
+    // The key and parser are immutable and thread-safe, so they are built once instead of per call.
+    private SecretKey signingKey;
+    private JwtParser parser;
+    // Subjects of tokens whose signature has been checked, keyed by SHA-256 of the token and kept no longer than its exp.
+    private BoundedTtlCache<String, String> verified;
+
+    @PostConstruct
+    void init() {
+        signingKey = buildSigningKey();
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verified = new BoundedTtlCache<>(cacheMaxEntries, cacheMaxTtlMillis);
+    }
+
+    private SecretKey getSigningKey() { return signingKey; }
+
+    private SecretKey buildSigningKey() {
         try {
             // Ensure the secret is exactly 32 characters for HS256
             String key = secret;
@@ -58,11 +85,7 @@ public class JwtUtil {
 
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             logger.warn("JWT token expired: {}", e.getMessage());
             throw e;
@@ -72,6 +95,33 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Checks signature and expiry in a single parse and returns the subject, or null if the token is not valid. A token
+     * verified before is answered from the cache until its own expiry, so repeat callers cost one hash and lookup.
+     */
+    public String verify(String token) {
+        if (token == null || token.isEmpty()) return null;
+        String hash = hash(token), subject = verified.get(hash);
+        if (subject != null) return subject;
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            subject = claims.getSubject(); if (subject == null) return null;
+            if (claims.getExpiration() != null) verified.put(hash, subject, claims.getExpiration().getTime() - System.currentTimeMillis());
+            return subject;
+        } catch (ExpiredJwtException e) {
+            logger.warn("JWT token expired: {}", e.getMessage());
+            return null;
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.error("JWT validation error: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String hash(String token) {
+        try { return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8))); }
+        catch (NoSuchAlgorithmException e) { throw new IllegalStateException("SHA-256 is not available", e); }
+    }
+
     private Boolean isTokenExpired(String token) {
         try {
             return extractExpiration(token).before(new Date());
@@ -112,18 +162,6 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
-            return true;
-        } catch (ExpiredJwtException e) {
-            logger.warn("JWT token expired: {}", e.getMessage());
-            return false;
-        } catch (JwtException | IllegalArgumentException e) {
-            logger.error("JWT validation error: {}", e.getMessage());
-            return false;
-        }
+        return verify(token) != null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.example.library-backend.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on a small dedicated pool so a burst of logins cannot occupy the request threads that serve the
+ * catalogue. The pool has {@code library.security.hashing.threads} workers and a queue of
+ * {@code library.security.hashing.queue} tasks; beyond that new work is refused at once with
+ * {@link RejectedExecutionException}, which the controllers answer with 429. Callers that block on {@link #encode}
+ * give up after {@code library.security.hashing.wait-ms} with the same exception, so a request thread is never held
+ * for longer than that. Queue wait and hashing time are recorded
+ * as library.password.hashing.wait and library.password.hashing.time, tagged by operation.
+ */
+@Service
+public class PasswordHashingService {
+    private static final String METRIC = "library.password.hashing";
+
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private MeterRegistry meterRegistry;
+    @Value("${library.security.hashing.threads:2}") private int threads;
+    @Value("${library.security.hashing.queue:64}") private int queueCapacity;
+    @Value("${library.security.hashing.wait-ms:2000}") private long waitMillis;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+    private Meters encodeMeters, matchesMeters;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet()); thread.setDaemon(true); return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        rejected = Counter.builder(METRIC + ".rejected").description("Hashing requests refused because the pool was saturated").register(meterRegistry);
+        Gauge.builder(METRIC + ".queue", executor, pool -> pool.getQueue().size()).description("Hashing requests waiting for a worker").register(meterRegistry);
+        encodeMeters = meters("encode"); matchesMeters = meters("matches");
+    }
+
+    @PreDestroy
+    void stop() { executor.shutdown(); }
+
+    public CompletableFuture<String> encodeAsync(String rawPassword) { return submit(encodeMeters, () -> passwordEncoder.encode(rawPassword)); }
+
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword) { return submit(matchesMeters, () -> passwordEncoder.matches(rawPassword, encodedPassword)); }
+
+    // For callers that need the hash before they can continue; waits at most wait-ms, then the queued hash is cancelled.
+    public String encode(String rawPassword) {
+        CompletableFuture<String> hash = encodeAsync(rawPassword);
+        try { return hash.get(waitMillis, TimeUnit.MILLISECONDS); }
+        catch (TimeoutException e) { hash.cancel(false); rejected.increment(); throw new RejectedExecutionException("Password hashing is busy, please retry shortly", e); }
+        catch (InterruptedException e) { hash.cancel(false); Thread.currentThread().interrupt(); throw new IllegalStateException("Interrupted while hashing password", e); }
+        catch (ExecutionException e) { throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException("Password hashing failed", e.getCause()); }
+    }
+
+    // True when the hash was made with a lower cost factor than the one configured now.
+    public boolean needsRehash(String encodedPassword) { return encodedPassword != null && passwordEncoder.upgradeEncoding(encodedPassword); }
+
+    private <T> CompletableFuture<T> submit(Meters meters, Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime(); meters.queued().record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                try { return task.get(); } finally { meters.hashing().record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS); }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment(); throw new RejectedExecutionException("Too many password hashing requests, please retry shortly", e);
+        }
+    }
+
+    private Meters meters(String operation) {
+        return new Meters(Timer.builder(METRIC + ".wait").tag("operation", operation).register(meterRegistry), Timer.builder(METRIC + ".time").tag("operation", operation).register(meterRegistry));
+    }
+
+    private record Meters(Timer queued, Timer hashing) {}
+}
@@ -0,0 +1,219 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.dto.ImportResult;
+import com.example.library-backend.entity.Book;
+import com.example.library-backend.repository.BookRepository;
+import com.example.library-backend.search.BookFacetIndex;
+import com.example.library-backend.search.BookSearchIndex;
+import com.example.library-backend.util.CsvReader;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk catalog loads. Rows are parsed one at a time and written with batched JDBC upserts keyed on isbn, each batch in
+ * its own transaction, so a file of any size never sits in memory and one bad batch does not roll back the others.
+ * Each committed batch is added to the search and facet indexes incrementally, so they stay complete while it runs.
+ */
+@Service
+public class BookImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BookImportService.class);
+    public static final String CSV = "csv", NDJSON = "ndjson";
+    // Eleven bind parameters per row; keeps one statement under the driver's limit of 65535.
+    private static final int MAX_STATEMENT_ROWS = 5000;
+
+    private static final String INSERT_SQL = "INSERT INTO books (title, author, isbn, publisher, publication_year, genre, description, total_copies, available_copies, active, created_at, updated_at) VALUES ";
+    private static final String ROW_SQL = "(?, ?, ?, ?, ?, ?, ?, ?, ?, true, ?, ?)";
+    // Copies that are out on loan stay out: an updated total only moves the on-shelf count, and a total below the
+    // copies on loan leaves the existing row untouched, so it is missing from RETURNING and reported as rejected.
+    private static final String ON_CONFLICT_SQL = " ON CONFLICT (isbn) DO UPDATE SET title = EXCLUDED.title, author = EXCLUDED.author, publisher = EXCLUDED.publisher, "
+            + "publication_year = EXCLUDED.publication_year, genre = EXCLUDED.genre, description = EXCLUDED.description, total_copies = EXCLUDED.total_copies, "
+            + "available_copies = EXCLUDED.total_copies - (books.total_copies - books.available_copies), active = true, updated_at = EXCLUDED.updated_at "
+            + "WHERE EXCLUDED.total_copies >= books.total_copies - books.available_copies RETURNING id, isbn";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private BookSearchIndex bookSearchIndex;
+    @Autowired private BookFacetIndex bookFacetIndex;
+    @Autowired private BookRepository bookRepository;
+    @Autowired private LibraryStats libraryStats;
+    @Value("${library.import.batch-size:1000}") private int batchSize;
+    @Value("${library.import.max-reported-errors:1000}") private int maxReportedErrors;
+
+    public static String detectFormat(String format, String filename, String contentType) {
+        String hint = format != null && !format.isBlank() ? format : filename != null && filename.contains(".") ? filename.substring(filename.lastIndexOf('.') + 1) : contentType;
+        if (hint == null) throw new IllegalArgumentException("Import format is required (csv or ndjson)");
+        hint = hint.toLowerCase(Locale.ROOT);
+        if (hint.contains(CSV)) return CSV;
+        if (hint.contains(NDJSON) || hint.contains("jsonl") || hint.contains("json")) return NDJSON;
+        throw new IllegalArgumentException("Unsupported import format: " + hint);
+    }
+
+    public ImportResult importBooks(InputStream input, String format) throws IOException {
+        ImportResult result = new ImportResult(); result.setFormat(format);
+        long start = System.currentTimeMillis();
+        Batch batch = new Batch(result);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        if (CSV.equals(format)) readCsv(reader, batch); else if (NDJSON.equals(format)) readNdjson(reader, batch);
+        else throw new IllegalArgumentException("Unsupported import format: " + format);
+        batch.flush();
+
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        result.setRowsPerSecond(result.getElapsedMs() == 0 ? result.getProcessed() : result.getProcessed() * 1000.0 / result.getElapsedMs());
+        logger.info("Imported {} of {} {} rows in {} ms ({} rows/s, {} failed)", result.getImported(), result.getProcessed(), format, result.getElapsedMs(),
+                Math.round(result.getRowsPerSecond()), result.getFailed());
+        if (result.getImported() > 0) libraryStats.reconcile();
+        return result;
+    }
+
+    private void readCsv(BufferedReader in, Batch batch) throws IOException {
+        CsvReader csv = new CsvReader(in);
+        List<String> header = csv.next(); if (header == null) return;
+        List<String> columns = new ArrayList<>(); for (String name : header) columns.add(column(name));
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < columns.size() && i < record.size(); i++) fields.put(columns.get(i), record.get(i));
+            batch.add(csv.getRecordLine(), fields);
+        }
+    }
+
+    private void readNdjson(BufferedReader in, Batch batch) throws IOException {
+        String text; long line = 0;
+        while ((text = in.readLine()) != null) {
+            line++; if (text.isBlank()) continue;
+            Map<String, String> fields = new HashMap<>();
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                if (!node.isObject()) throw new IllegalArgumentException("expected a JSON object");
+                for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> e = it.next(); fields.put(column(e.getKey()), e.getValue().isNull() ? null : e.getValue().asText());
+                }
+            } catch (IOException | IllegalArgumentException e) { batch.reject(line, "Invalid JSON: " + e.getMessage()); continue; }
+            batch.add(line, fields);
+        }
+    }
+
+    private static String column(String name) { return name == null ? "" : name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", ""); }
+
+    private static Object[] toRow(Map<String, String> fields) {
+        String title = text(fields, 255, "title"), author = text(fields, 255, "author");
+        if (title == null) throw new IllegalArgumentException("title is required");
+        if (author == null) throw new IllegalArgumentException("author is required");
+        Integer totalCopies = number(fields, "totalcopies", "copies");
+        if (totalCopies == null) totalCopies = 1;
+        if (totalCopies < 0) throw new IllegalArgumentException("totalCopies cannot be negative");
+        return new Object[]{title, author, text(fields, 255, "isbn"), text(fields, 255, "publisher"), number(fields, "publicationyear", "year"),
+                text(fields, 255, "genre"), text(fields, 1000, "description"), totalCopies, totalCopies};
+    }
+
+    private static String text(Map<String, String> fields, int maxLength, String column) {
+        String value = fields.get(column); if (value == null || value.isBlank()) return null;
+        value = value.trim();
+        if (value.length() > maxLength) throw new IllegalArgumentException(column + " is longer than " + maxLength + " characters");
+        return value;
+    }
+
+    private static Integer number(Map<String, String> fields, String... columns) {
+        for (String column : columns) {
+            String value = fields.get(column); if (value == null || value.isBlank()) continue;
+            try { return Integer.valueOf(value.trim()); } catch (NumberFormatException e) { throw new IllegalArgumentException(column + " is not a whole number: " + value.trim()); }
+        }
+        return null;
+    }
+
+    private final class Batch {
+        private final ImportResult result;
+        private final List<Object[]> rows = new ArrayList<>(batchSize);
+        private final List<Long> lines = new ArrayList<>(batchSize);
+        private final Set<String> isbns = new HashSet<>();
+
+        Batch(ImportResult result) { this.result = result; }
+
+        void add(long line, Map<String, String> fields) {
+            result.setProcessed(result.getProcessed() + 1);
+            Object[] row;
+            try { row = toRow(fields); } catch (IllegalArgumentException e) { error(line, e.getMessage()); return; }
+            // Postgres rejects an upsert that touches the same row twice in one statement, so a repeated isbn starts a new batch.
+            String isbn = (String) row[2];
+            if (isbn != null && !isbns.add(isbn)) { flush(); isbns.add(isbn); }
+            rows.add(row); lines.add(line);
+            if (rows.size() >= Math.min(batchSize, MAX_STATEMENT_ROWS)) flush();
+        }
+
+        void reject(long line, String message) { result.setProcessed(result.getProcessed() + 1); error(line, message); }
+
+        void flush() {
+            if (rows.isEmpty()) return;
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Map<Long, String> written = new HashMap<>(); Set<Integer> failed = new HashSet<>();
+            try {
+                written.putAll(tx.execute(status -> upsert(rows, now)));
+            } catch (DataAccessException batchFailure) {
+                // Replay the batch row by row so only the offending rows are reported.
+                for (int i = 0; i < rows.size(); i++) {
+                    List<Object[]> row = List.of(rows.get(i));
+                    try { written.putAll(tx.execute(status -> upsert(row, now))); }
+                    catch (DataAccessException e) { failed.add(i); error(lines.get(i), e.getMostSpecificCause().getMessage()); }
+                }
+            }
+            Set<String> writtenIsbns = new HashSet<>(written.values());
+            for (int i = 0; i < rows.size(); i++) {
+                String isbn = (String) rows.get(i)[2];
+                if (!failed.contains(i) && isbn != null && !writtenIsbns.contains(isbn)) error(lines.get(i), "totalCopies " + rows.get(i)[7] + " is below the number of copies currently on loan");
+            }
+            result.setImported(result.getImported() + written.size());
+            // Committed rows go into the search and facet indexes one by one, as edits through BookService do.
+            if (!written.isEmpty()) for (Book book : bookRepository.findAllById(written.keySet())) { bookSearchIndex.index(book); bookFacetIndex.index(book); }
+            rows.clear(); lines.clear(); isbns.clear();
+        }
+
+        // One multi-row upsert; returns id to isbn for every row inserted or updated.
+        private Map<Long, String> upsert(List<Object[]> batch, Timestamp now) {
+            StringBuilder sql = new StringBuilder(INSERT_SQL); List<Object> args = new ArrayList<>(batch.size() * 11);
+            for (Object[] row : withTimestamps(batch, now)) { sql.append(args.isEmpty() ? "" : ", ").append(ROW_SQL); args.addAll(Arrays.asList(row)); }
+            Map<Long, String> written = new HashMap<>();
+            jdbcTemplate.query(sql.append(ON_CONFLICT_SQL).toString(), (ResultSet rs) -> { written.put(rs.getLong(1), rs.getString(2)); }, args.toArray());
+            return written;
+        }
+
+        private void error(long line, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < maxReportedErrors) result.getErrors().add(new ImportResult.RowError(line, message)); else result.setErrorsTruncated(true);
+        }
+
+        private List<Object[]> withTimestamps(List<Object[]> source, Timestamp now) {
+            List<Object[]> args = new ArrayList<>(source.size());
+            for (Object[] row : source) { Object[] full = new Object[row.length + 2]; System.arraycopy(row, 0, full, 0, row.length); full[row.length] = now; full[row.length + 1] = now; args.add(full); }
+            return args;
+        }
+    }
+}
@@ -1,51 +1,124 @@
 package com.example.library-backend.service;
 
+import com.example.library-backend.dto.CursorPage;
 import com.example.library-backend.entity.Book;
+import com.example.library-backend.event.BookAvailabilityChangedEvent;
 import com.example.library-backend.repository.BookRepository;
+import com.example.library-backend.search.BookFacetIndex;
+import com.example.library-backend.search.BookSearchIndex;
+import com.example.library-backend.search.FacetQuery;
+import com.example.library-backend.search.FacetResult;
+import com.example.library-backend.search.Suggestion;
+import com.example.library-backend.util.KeysetCursor;
+import com.example.library-backend.util.TransactionHooks;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @Transactional
 public class BookService {
+    private static final int DEFAULT_FUZZY_LIMIT = 20;
+    private static final int ID_BATCH_SIZE = 1000;
     @Autowired private BookRepository bookRepository;
+    @Autowired private BookSearchIndex bookSearchIndex;
+    @Autowired private BookFacetIndex bookFacetIndex;
+    @Autowired private HoldService holdService;
+    @Autowired private ApplicationEventPublisher eventPublisher;
 
     public List<Book> findAll() { return bookRepository.findByActiveTrue(); }
+    public CursorPage<Book> findPage(String cursor, Integer limit, boolean availableOnly) {
+        PageRequest page = PageRequest.of(0, CursorPage.limit(limit));
+        if (cursor == null || cursor.isBlank()) return CursorPage.of(bookRepository.findFirstPage(availableOnly, page), book -> KeysetCursor.encode(book.getTitle(), book.getId()));
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return CursorPage.of(bookRepository.findPageAfter(availableOnly, after.getKey(), after.getId(), page), book -> KeysetCursor.encode(book.getTitle(), book.getId()));
+    }
     public Optional<Book> findById(Long id) { return bookRepository.findByIdAndActiveTrue(id); }
     public Book save(Book book) {
         if (book.getAvailableCopies() == null) book.setAvailableCopies(book.getTotalCopies() != null ? book.getTotalCopies() : 0);
         if (book.getTotalCopies() == null) book.setTotalCopies(book.getAvailableCopies() != null ? book.getAvailableCopies() : 0);
         if (book.getActive() == null) book.setActive(true);
         if (book.getAvailableCopies() > book.getTotalCopies()) book.setAvailableCopies(book.getTotalCopies());
-        return bookRepository.save(book); 
+        Book saved = bookRepository.save(book); reindex(saved); return saved;
+    }
+    public void deleteById(Long id) { bookRepository.findById(id).ifPresent(book -> { book.setActive(false); reindex(bookRepository.save(book)); }); }
+    public List<Book> searchBooks(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) return findAll();
+        if (!bookSearchIndex.isReady()) return bookRepository.searchBooks(keyword.trim());
+        List<Book> books = findAllInOrder(bookSearchIndex.search(keyword.trim()));
+        return books.isEmpty() ? fuzzySearchBooks(keyword, DEFAULT_FUZZY_LIMIT) : books;
+    }
+    public List<Book> fuzzySearchBooks(String keyword, int limit) {
+        if (keyword == null || keyword.trim().isEmpty() || !bookSearchIndex.isReady()) return List.of();
+        return findAllInOrder(bookSearchIndex.fuzzySearch(keyword.trim(), limit));
+    }
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty() || !bookSearchIndex.isReady()) return List.of();
+        return bookSearchIndex.suggest(prefix, limit);
+    }
+    public List<Book> filterBooks(String search, String author, String genre, Boolean available) {
+        boolean hasSearch = search != null && !search.isBlank(), hasAuthor = author != null && !author.isBlank(), hasGenre = genre != null && !genre.isBlank(), availableOnly = available != null && available;
+        if (!bookFacetIndex.isReady() || (hasSearch && !bookSearchIndex.isReady()) || !(hasAuthor || hasGenre || availableOnly)) {
+            if (hasSearch) return searchBooks(search); if (hasAuthor) return findByAuthor(author); if (hasGenre) return findByGenre(genre);
+            return availableOnly ? findAvailableBooks() : findAll();
+        }
+        FacetQuery query = new FacetQuery(); query.setSearch(search); query.setAuthorContains(author); query.setGenreContains(genre); if (availableOnly) query.setAvailable(true);
+        return findAllInOrder(facetSearch(query, Integer.MAX_VALUE, 0).getIds());
+    }
+    public FacetResult facetSearch(FacetQuery query, int idLimit, int facetLimit) {
+        if (!bookFacetIndex.isReady()) throw new IllegalStateException("Facet index is not ready yet");
+        if (query.getSearch() == null || query.getSearch().isBlank()) return bookFacetIndex.query(query, null, idLimit, facetLimit);
+        if (!bookSearchIndex.isReady()) throw new IllegalStateException("Search index is not ready yet");
+        List<Long> ranked = bookSearchIndex.search(query.getSearch().trim()); RoaringBitmap hits = new RoaringBitmap(); ranked.forEach(id -> hits.add(Math.toIntExact(id)));
+        FacetResult result = bookFacetIndex.query(query, hits, 0, facetLimit); List<Long> ids = new ArrayList<>();
+        for (Long id : ranked) { if (ids.size() >= idLimit) break; if (result.getMatches().contains(Math.toIntExact(id))) ids.add(id); }
+        result.setIds(ids); return result;
     }
-    public void deleteById(Long id) { bookRepository.findById(id).ifPresent(book -> { book.setActive(false); bookRepository.save(book); }); }
-    public List<Book> searchBooks(String keyword) { if (keyword == null || keyword.trim().isEmpty()) return findAll(); return bookRepository.searchBooks(keyword.trim()); }
     public List<Book> findAvailableBooks() { return bookRepository.findAvailableBooks(); }
     public List<Book> findByAuthor(String author) { if (author == null || author.trim().isEmpty()) return findAll(); return bookRepository.findByAuthorContainingIgnoreCase(author.trim()); }
     public List<Book> findByGenre(String genre) { if (genre == null || genre.trim().isEmpty()) return findAll(); return bookRepository.findByGenreContainingIgnoreCase(genre.trim()); }
     public Long getTotalBookCount() { Long count = bookRepository.countActiveBooks(); return count != null ? count : 0L; }
-    public Long getAvailableBookCount() { List<Book> availableBooks = bookRepository.findAvailableBooks(); return availableBooks != null ? (long) availableBooks.size() : 0L; }
+    public Long getAvailableBookCount() { Long count = bookRepository.countAvailableBooks(); return count != null ? count : 0L; }
     public Book updateBookCopies(Long bookId, Integer newTotalCopies) {
         if (newTotalCopies == null || newTotalCopies < 0) throw new IllegalArgumentException("Total copies must be a non-negative number");
-        Optional<Book> bookOpt = bookRepository.findById(bookId); if (bookOpt.isPresent()) {
-            Book book = bookOpt.get(); Integer currentBorrowed = book.getTotalCopies() - book.getAvailableCopies();
-            if (newTotalCopies >= currentBorrowed) { book.setTotalCopies(newTotalCopies); book.setAvailableCopies(newTotalCopies - currentBorrowed); return bookRepository.save(book);
-            } else throw new IllegalArgumentException("New total copies (" + newTotalCopies + ") cannot be less than currently borrowed copies (" + currentBorrowed + ")");
-        } throw new IllegalArgumentException("Book not found with id: " + bookId);
+        if (bookRepository.resizeCopies(bookId, newTotalCopies) == 0) {
+            Book book = bookRepository.findById(bookId).orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + bookId));
+            throw new IllegalArgumentException("New total copies (" + newTotalCopies + ") cannot be less than currently borrowed copies (" + (book.getTotalCopies() - book.getAvailableCopies()) + ")");
+        }
+        holdService.serveWaiting(bookId); Book saved = bookRepository.findById(bookId).orElseThrow(); reindex(saved); return saved;
     }
     public boolean isBookAvailable(Long bookId) { Optional<Book> bookOpt = findById(bookId); return bookOpt.isPresent() && bookOpt.get().getAvailableCopies() != null && bookOpt.get().getAvailableCopies() > 0; }
     public Integer getAvailableCopies(Long bookId) { Optional<Book> bookOpt = findById(bookId); return bookOpt.map(Book::getAvailableCopies).orElse(0); }
     public Book updateBookAvailability(Long bookId, Integer availableCopiesChange) {
-        Optional<Book> bookOpt = bookRepository.findById(bookId); if (bookOpt.isPresent()) {
-            Book book = bookOpt.get(); Integer newAvailableCopies = book.getAvailableCopies() + availableCopiesChange;
-            if (newAvailableCopies < 0) throw new IllegalStateException("Available copies cannot be negative");
-            if (newAvailableCopies > book.getTotalCopies()) throw new IllegalStateException("Available copies cannot exceed total copies");
-            book.setAvailableCopies(newAvailableCopies); return bookRepository.save(book);
-        } throw new IllegalArgumentException("Book not found with id: " + bookId);
+        if (availableCopiesChange == null) throw new IllegalArgumentException("Available copies change is required");
+        if (bookRepository.adjustAvailableCopies(bookId, availableCopiesChange) == 0) {
+            Book book = bookRepository.findById(bookId).orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + bookId));
+            if (book.getAvailableCopies() + availableCopiesChange < 0) throw new IllegalStateException("Available copies cannot be negative");
+            throw new IllegalStateException("Available copies cannot exceed total copies");
+        }
+        holdService.serveWaiting(bookId); Book saved = bookRepository.findById(bookId).orElseThrow(); reindex(saved); return saved;
+    }
+
+    private void reindex(Book book) {
+        TransactionHooks.afterCommit(() -> { bookSearchIndex.index(book); bookFacetIndex.index(book); });
+        if (book.getAvailableCopies() != null) eventPublisher.publishEvent(new BookAvailabilityChangedEvent(book.getId(), book.getAvailableCopies()));
+    }
+    private List<Book> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, Integer> rank = new HashMap<>(); for (int i = 0; i < ids.size(); i++) rank.put(ids.get(i), i);
+        List<Book> books = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) books.addAll(bookRepository.findAllById(ids.subList(from, Math.min(ids.size(), from + ID_BATCH_SIZE))));
+        books.removeIf(book -> !Boolean.TRUE.equals(book.getActive()));
+        books.sort(Comparator.comparing(book -> rank.get(book.getId()))); return books;
     }
 }
\ No newline at end of file
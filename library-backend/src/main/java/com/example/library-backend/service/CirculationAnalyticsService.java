@@ -0,0 +1,141 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.dto.CirculationPoint;
+import com.example.library-backend.event.LoanCreatedEvent;
+import com.example.library-backend.event.LoanReturnedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circulation charts served from circulation_daily, one row per day and genre, author or library-wide total, instead of
+ * scanning loans joined with books. Committed checkouts and returns are counted in memory and upserted every
+ * {@code library.analytics.flush-ms}; history is backfilled month by month from loans and loans_archive when the table
+ * is empty, and recent days are rebuilt nightly so rows lost with a crash or moved by a deleted loan are corrected.
+ * Rows are keyed on the book's genre and author at the time they are written.
+ */
+@Service
+public class CirculationAnalyticsService {
+    private static final Logger logger = LoggerFactory.getLogger(CirculationAnalyticsService.class);
+    public static final String ALL = "ALL", GENRE = "GENRE", AUTHOR = "AUTHOR";
+    private static final Set<String> INTERVALS = Set.of("day", "week", "month", "year");
+    private static final int MAX_KEYS = 100;
+
+    // Fans one book's counts out to its three rows; COALESCE keeps books without a genre in an empty-genre bucket.
+    private static final String DIMENSIONS = "CROSS JOIN LATERAL (VALUES ('" + ALL + "', ''), ('" + GENRE + "', COALESCE(b.genre, '')), ('" + AUTHOR + "', b.author)) d(dimension, dim_value)";
+    private static final String UPSERT_SQL = "INSERT INTO circulation_daily (stat_date, dimension, dim_value, loans, returns) SELECT ?, d.dimension, d.dim_value, ?, ? FROM books b "
+            + DIMENSIONS + " WHERE b.id = ? ON CONFLICT (dimension, stat_date, dim_value) DO UPDATE SET loans = circulation_daily.loans + EXCLUDED.loans, returns = circulation_daily.returns + EXCLUDED.returns";
+    private static final String REBUILD_SQL = "INSERT INTO circulation_daily (stat_date, dimension, dim_value, loans, returns) SELECT e.day, d.dimension, d.dim_value, SUM(e.loans), SUM(e.returns) FROM ("
+            + "SELECT loan_date AS day, book_id, 1 AS loans, 0 AS returns FROM loans WHERE loan_date BETWEEN ? AND ? "
+            + "UNION ALL SELECT actual_return_date, book_id, 0, 1 FROM loans WHERE returned = true AND actual_return_date BETWEEN ? AND ? "
+            + "UNION ALL SELECT loan_date, book_id, 1, 0 FROM loans_archive WHERE loan_date BETWEEN ? AND ? "
+            + "UNION ALL SELECT actual_return_date, book_id, 0, 1 FROM loans_archive WHERE actual_return_date BETWEEN ? AND ?) e "
+            + "JOIN books b ON b.id = e.book_id " + DIMENSIONS + " GROUP BY e.day, d.dimension, d.dim_value";
+    private static final String FIRST_DAY_SQL = "SELECT LEAST((SELECT MIN(loan_date) FROM loans), (SELECT MIN(loan_date) FROM loans_archive))";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Value("${library.analytics.enabled:true}") private boolean enabled;
+    @Value("${library.analytics.reconcile-days:3}") private int reconcileDays;
+
+    private final Map<DayBook, long[]> pending = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCreated(LoanCreatedEvent event) { count(event.getBookId(), 1, 0); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReturned(LoanReturnedEvent event) { count(event.getBookId(), 0, 1); }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!enabled || jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM circulation_daily)", Boolean.class)) return;
+        LocalDate first = jdbcTemplate.queryForObject(FIRST_DAY_SQL, LocalDate.class);
+        if (first != null && first.isBefore(LocalDate.now())) rebuild(first, LocalDate.now().minusDays(1));
+    }
+
+    @Scheduled(fixedDelayString = "${library.analytics.flush-ms:5000}")
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        for (DayBook key : pending.keySet()) { long[] counts = pending.remove(key); if (counts != null) batch.add(new Object[]{key.day(), counts[0], counts[1], key.bookId()}); }
+        if (!batch.isEmpty()) jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+    }
+
+    @Scheduled(cron = "${library.analytics.reconcile-cron:0 15 2 * * *}")
+    public void reconcile() { if (enabled && reconcileDays > 0) rebuild(LocalDate.now().minusDays(reconcileDays), LocalDate.now().minusDays(1)); }
+
+    // Recomputes the rows for [from, to] from the loan tables, one month per transaction. The range ends yesterday at the
+    // latest: today is left to the incremental path, since events counted while it was re-derived would be added twice.
+    public synchronized long rebuild(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) throw new IllegalArgumentException("Invalid date range");
+        LocalDate yesterday = LocalDate.now().minusDays(1); if (to.isAfter(yesterday)) to = yesterday;
+        if (from.isAfter(to)) return 0;
+        flush();
+        long start = System.currentTimeMillis(), rows = 0; TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (LocalDate chunkStart = from; !chunkStart.isAfter(to); ) {
+            LocalDate chunkEnd = chunkStart.withDayOfMonth(chunkStart.lengthOfMonth()); if (chunkEnd.isAfter(to)) chunkEnd = to;
+            LocalDate a = chunkStart, b = chunkEnd;
+            rows += tx.execute(status -> {
+                jdbcTemplate.update("DELETE FROM circulation_daily WHERE stat_date BETWEEN ? AND ?", a, b);
+                return jdbcTemplate.update(REBUILD_SQL, a, b, a, b, a, b, a, b);
+            });
+            chunkStart = chunkEnd.plusDays(1);
+        }
+        logger.info("Rebuilt {} circulation rollup rows for {} to {} in {} ms", rows, from, to, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    // Loans and returns per interval; grouped by genre or author, limited to the busiest keys over the range unless one key is given.
+    public List<CirculationPoint> getSeries(LocalDate from, LocalDate to, String interval, String groupBy, String key, int limit) {
+        String unit = interval == null ? "day" : interval.toLowerCase();
+        if (!INTERVALS.contains(unit)) throw new IllegalArgumentException("Interval must be one of " + INTERVALS);
+        String dimension = dimension(groupBy); checkRange(from, to);
+        String period = "CAST(date_trunc('" + unit + "', stat_date) AS date)";
+        if (dimension.equals(ALL)) return jdbcTemplate.query("SELECT " + period + ", SUM(loans), SUM(returns) FROM circulation_daily WHERE dimension = ? AND stat_date BETWEEN ? AND ? GROUP BY 1 ORDER BY 1",
+                (rs, i) -> new CirculationPoint(rs.getObject(1, LocalDate.class), null, rs.getLong(2), rs.getLong(3)), ALL, from, to);
+        String keys = key != null ? "dim_value = ?" : "dim_value IN (SELECT dim_value FROM circulation_daily WHERE dimension = ? AND stat_date BETWEEN ? AND ? GROUP BY dim_value ORDER BY SUM(loans) DESC LIMIT ?)";
+        Object[] args = key != null ? new Object[]{dimension, from, to, key} : new Object[]{dimension, from, to, dimension, from, to, clamp(limit)};
+        return jdbcTemplate.query("SELECT " + period + ", dim_value, SUM(loans), SUM(returns) FROM circulation_daily WHERE dimension = ? AND stat_date BETWEEN ? AND ? AND " + keys + " GROUP BY 1, 2 ORDER BY 1, 2",
+                (rs, i) -> new CirculationPoint(rs.getObject(1, LocalDate.class), rs.getString(2), rs.getLong(3), rs.getLong(4)), args);
+    }
+
+    // Totals per genre or author over the range, busiest first.
+    public List<CirculationPoint> getTop(LocalDate from, LocalDate to, String groupBy, int limit) {
+        String dimension = dimension(groupBy); checkRange(from, to);
+        return jdbcTemplate.query("SELECT dim_value, SUM(loans), SUM(returns) FROM circulation_daily WHERE dimension = ? AND stat_date BETWEEN ? AND ? GROUP BY dim_value ORDER BY 2 DESC, 1 LIMIT ?",
+                (rs, i) -> new CirculationPoint(null, dimension.equals(ALL) ? null : rs.getString(1), rs.getLong(2), rs.getLong(3)), dimension, from, to, clamp(limit));
+    }
+
+    private void count(Long bookId, long loans, long returns) {
+        if (enabled && bookId != null) pending.merge(new DayBook(LocalDate.now(), bookId), new long[]{loans, returns}, (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+    }
+
+    private static String dimension(String groupBy) {
+        if (groupBy == null || groupBy.isBlank() || groupBy.equalsIgnoreCase("none")) return ALL;
+        if (groupBy.equalsIgnoreCase("genre")) return GENRE;
+        if (groupBy.equalsIgnoreCase("author")) return AUTHOR;
+        throw new IllegalArgumentException("Group by must be genre, author or none");
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) { if (from == null || to == null || from.isAfter(to)) throw new IllegalArgumentException("Invalid date range"); }
+
+    private static int clamp(int limit) { return Math.max(1, Math.min(limit, MAX_KEYS)); }
+
+    private record DayBook(LocalDate day, Long bookId) {}
+}
@@ -0,0 +1,153 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.event.LoanCreatedEvent;
+import com.example.library-backend.event.LoanDeletedEvent;
+import com.example.library-backend.event.LoanDueSoonEvent;
+import com.example.library-backend.event.LoanOverdueEvent;
+import com.example.library-backend.event.LoanRenewedEvent;
+import com.example.library-backend.event.LoanReturnedEvent;
+import com.example.library-backend.util.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which open loans are due soon or overdue without scanning the loans table. Every open loan has two timers in
+ * a {@link TimingWheel}: one at the start of the "due soon" window and one at the first instant after its due date.
+ * Loan lifecycle events keep the timers current, and when a timer fires the loan moves into the matching set and a
+ * {@link LoanDueSoonEvent} or {@link LoanOverdueEvent} is published. The seed query streams without holding the lock;
+ * lifecycle events that arrive meanwhile are buffered and replayed once the seeded timers are in place.
+ */
+@Service
+public class DueDateTracker {
+    private static final Logger logger = LoggerFactory.getLogger(DueDateTracker.class);
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Value("${library.due-dates.tick-ms:60000}") private long tickMillis;
+    @Value("${library.due-dates.due-soon-days:2}") private int dueSoonDays;
+    @Value("${library.due-dates.seed-fetch-size:5000}") private int seedFetchSize;
+
+    private final Set<Long> overdue = ConcurrentHashMap.newKeySet(), dueSoon = ConcurrentHashMap.newKeySet();
+    private final Map<Long, LocalDate> dueDates = new HashMap<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private TimingWheel<Long> wheel;
+    private volatile boolean ready;
+    // Lifecycle changes seen while the seed query runs; null otherwise. Guarded by this.
+    private List<Runnable> buffered;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long start = System.currentTimeMillis(); OpenLoans loans = new OpenLoans();
+        synchronized (this) { buffered = new ArrayList<>(); }
+        try {
+            // Streamed through a cursor, which PostgreSQL only uses inside a transaction.
+            TransactionTemplate tx = new TransactionTemplate(transactionManager); tx.setReadOnly(true);
+            tx.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                var ps = connection.prepareStatement("SELECT id, due_date FROM loans WHERE returned = false");
+                ps.setFetchSize(seedFetchSize); return ps;
+            }, (ResultSet rs) -> { loans.add(rs.getLong(1), rs.getObject(2, LocalDate.class)); }));
+            synchronized (this) {
+                LocalDate today = LocalDate.now(zone);
+                wheel = new TimingWheel<>(tickMillis, start); overdue.clear(); dueSoon.clear(); dueDates.clear();
+                for (int i = 0; i < loans.size; i++) track(loans.ids[i], LocalDate.ofEpochDay(loans.dueDays[i]), today);
+                buffered.forEach(Runnable::run); ready = true;
+                logger.info("Tracking {} open loans ({} overdue, {} due soon) in {} ms", dueDates.size(), overdue.size(), dueSoon.size(), System.currentTimeMillis() - start);
+            }
+        } finally {
+            synchronized (this) { buffered = null; }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.due-dates.tick-ms:60000}", initialDelayString = "${library.due-dates.tick-ms:60000}")
+    public void tick() {
+        List<Object> events = new ArrayList<>();
+        synchronized (this) {
+            if (wheel == null) return;
+            for (Long key : wheel.advance(System.currentTimeMillis())) {
+                long loanId = key >> 1; LocalDate dueDate = dueDates.get(loanId); if (dueDate == null) continue;
+                if ((key & 1) == 1) { dueSoon.remove(loanId); overdue.add(loanId); events.add(new LoanOverdueEvent(loanId, dueDate)); }
+                else if (!overdue.contains(loanId)) { dueSoon.add(loanId); events.add(new LoanDueSoonEvent(loanId, dueDate)); }
+            }
+        }
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onCreated(LoanCreatedEvent event) { apply(() -> track(event.getLoanId(), event.getDueDate(), LocalDate.now(zone))); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onRenewed(LoanRenewedEvent event) { apply(() -> { untrack(event.getLoanId()); track(event.getLoanId(), event.getDueDate(), LocalDate.now(zone)); }); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onReturned(LoanReturnedEvent event) { apply(() -> untrack(event.getLoanId())); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onDeleted(LoanDeletedEvent event) { apply(() -> untrack(event.getLoanId())); }
+
+    public boolean isReady() { return ready; }
+
+    public long getOverdueCount() { return overdue.size(); }
+
+    public long getDueSoonCount() { return dueSoon.size(); }
+
+    public List<Long> getOverdueLoanIds() { return new ArrayList<>(overdue); }
+
+    public List<Long> getDueSoonLoanIds() { return new ArrayList<>(dueSoon); }
+
+    // Loans already past a threshold at seed or creation time are placed straight into the sets without an event.
+    private void track(long loanId, LocalDate dueDate, LocalDate today) {
+        if (dueDate == null) return;
+        dueDates.put(loanId, dueDate);
+        if (today.isAfter(dueDate)) { overdue.add(loanId); return; }
+        wheel.schedule(loanId << 1 | 1, dueDate.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        LocalDate soonFrom = dueDate.minusDays(dueSoonDays);
+        if (today.isBefore(soonFrom)) wheel.schedule(loanId << 1, soonFrom.atStartOfDay(zone).toInstant().toEpochMilli()); else dueSoon.add(loanId);
+    }
+
+    // Applies the change to the live timers, if any, and keeps it for replay while a seed is running.
+    private void apply(Runnable change) {
+        if (buffered != null) buffered.add(change);
+        if (wheel != null) change.run();
+    }
+
+    private void untrack(long loanId) {
+        dueDates.remove(loanId); overdue.remove(loanId); dueSoon.remove(loanId);
+        wheel.cancel(loanId << 1); wheel.cancel(loanId << 1 | 1);
+    }
+
+    // Open loans read by the seed query, kept as two primitive arrays until the timers are rebuilt.
+    private static final class OpenLoans {
+        long[] ids = new long[1024], dueDays = new long[1024];
+        int size;
+
+        void add(long loanId, LocalDate dueDate) {
+            if (dueDate == null) return;
+            if (size == ids.length) { ids = Arrays.copyOf(ids, size * 2); dueDays = Arrays.copyOf(dueDays, size * 2); }
+            ids[size] = loanId; dueDays[size++] = dueDate.toEpochDay();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.library-backend.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Table exports streamed from a forward-only JDBC cursor. The driver fetches {@code library.export.fetch-size} rows at
+ * a time (PostgreSQL only honours the fetch size inside a transaction, hence the read-only transaction) and every row is
+ * written to the response as soon as it is read, so memory use does not grow with the table.
+ */
+@Service
+public class ExportService {
+    public static final String CSV = "csv", NDJSON = "ndjson";
+
+    private static final String LOANS_SQL = "SELECT l.id, l.book_id AS \"bookId\", b.title AS \"bookTitle\", b.isbn AS \"bookIsbn\", l.member_id AS \"memberId\", "
+            + "m.membership_id AS \"membershipId\", m.first_name AS \"memberFirstName\", m.last_name AS \"memberLastName\", l.loan_date AS \"loanDate\", l.due_date AS \"dueDate\", "
+            + "l.return_date AS \"returnDate\", l.actual_return_date AS \"actualReturnDate\", l.returned, l.fine_amount AS \"fineAmount\", l.notes, l.created_at AS \"createdAt\" "
+            + "FROM loans l JOIN books b ON b.id = l.book_id JOIN members m ON m.id = l.member_id WHERE (CAST(? AS date) IS NULL OR l.loan_date >= ?) AND (CAST(? AS date) IS NULL OR l.loan_date < ?) ORDER BY l.id";
+    private static final String BOOKS_SQL = "SELECT id, title, author, isbn, publisher, publication_year AS \"publicationYear\", genre, description, total_copies AS \"totalCopies\", "
+            + "available_copies AS \"availableCopies\", active, created_at AS \"createdAt\", updated_at AS \"updatedAt\" FROM books "
+            + "WHERE (CAST(? AS timestamp) IS NULL OR created_at >= ?) AND (CAST(? AS timestamp) IS NULL OR created_at < ?) ORDER BY id";
+    private static final String MEMBERS_SQL = "SELECT id, first_name AS \"firstName\", last_name AS \"lastName\", email, phone, membership_id AS \"membershipId\", address, "
+            + "date_of_birth AS \"dateOfBirth\", active, created_at AS \"createdAt\", updated_at AS \"updatedAt\" FROM members "
+            + "WHERE (CAST(? AS timestamp) IS NULL OR created_at >= ?) AND (CAST(? AS timestamp) IS NULL OR created_at < ?) ORDER BY id";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ObjectMapper objectMapper;
+    @Value("${library.export.fetch-size:1000}") private int fetchSize;
+
+    public static String format(String format) {
+        String value = format == null || format.isBlank() ? NDJSON : format.trim().toLowerCase(Locale.ROOT);
+        if (!CSV.equals(value) && !NDJSON.equals(value)) throw new IllegalArgumentException("Unsupported export format: " + format);
+        return value;
+    }
+
+    // Loans are filtered on loanDate, books and members on createdAt; since is inclusive, until exclusive.
+    public void exportLoans(String format, String since, String until, OutputStream out) {
+        LocalDate from = since == null || since.isBlank() ? null : parse(since).toLocalDate(), to = until == null || until.isBlank() ? null : parse(until).toLocalDate();
+        stream(LOANS_SQL, format, out, from, from, to, to);
+    }
+
+    public void exportBooks(String format, String since, String until, OutputStream out) { exportByCreatedAt(BOOKS_SQL, format, since, until, out); }
+
+    public void exportMembers(String format, String since, String until, OutputStream out) { exportByCreatedAt(MEMBERS_SQL, format, since, until, out); }
+
+    // Validates the filters before the response is committed, so bad input still gets a 400.
+    public static void validateRange(String since, String until) {
+        LocalDateTime from = since == null || since.isBlank() ? null : parse(since), to = until == null || until.isBlank() ? null : parse(until);
+        if (from != null && to != null && !from.isBefore(to)) throw new IllegalArgumentException("since must be before until");
+    }
+
+    private void exportByCreatedAt(String sql, String format, String since, String until, OutputStream out) {
+        Timestamp from = since == null || since.isBlank() ? null : Timestamp.valueOf(parse(since)), to = until == null || until.isBlank() ? null : Timestamp.valueOf(parse(until));
+        stream(sql, format, out, from, from, to, to);
+    }
+
+    private void stream(String sql, String format, OutputStream out, Object... args) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager); tx.setReadOnly(true);
+        tx.executeWithoutResult(status -> {
+            try (RowWriter writer = CSV.equals(format) ? new CsvRowWriter(out) : new NdjsonRowWriter(out)) {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    for (int i = 0; i < args.length; i++) ps.setObject(i + 1, args[i]);
+                    return ps;
+                }, (ResultSet rs) -> {
+                    try { writer.write(rs); } catch (IOException e) { throw new UncheckedIOException(e); }
+                });
+            } catch (IOException e) { throw new UncheckedIOException(e); }
+        });
+    }
+
+    static LocalDateTime parse(String value) {
+        String text = value.trim();
+        try { return text.length() <= 10 ? LocalDate.parse(text).atStartOfDay() : LocalDateTime.parse(text); }
+        catch (DateTimeParseException e) { throw new IllegalArgumentException("Invalid date: " + value + " (expected yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss)"); }
+    }
+
+    private static Object value(Object raw) {
+        if (raw instanceof Timestamp timestamp) return timestamp.toLocalDateTime().toString();
+        if (raw instanceof Date date) return date.toLocalDate().toString();
+        return raw;
+    }
+
+    private abstract static class RowWriter implements AutoCloseable {
+        protected List<String> columns;
+
+        void write(ResultSet rs) throws SQLException, IOException {
+            if (columns == null) {
+                ResultSetMetaData meta = rs.getMetaData(); columns = new ArrayList<>(meta.getColumnCount());
+                for (int i = 1; i <= meta.getColumnCount(); i++) columns.add(meta.getColumnLabel(i));
+                header();
+            }
+            row(rs);
+        }
+
+        abstract void header() throws IOException;
+        abstract void row(ResultSet rs) throws SQLException, IOException;
+        @Override public abstract void close() throws IOException;
+    }
+
+    private final class NdjsonRowWriter extends RowWriter {
+        private final JsonGenerator json;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            json = objectMapper.getFactory().createGenerator(new BufferedOutputStream(out, 64 * 1024), JsonEncoding.UTF8);
+            json.setRootValueSeparator(null);
+        }
+
+        @Override void header() {}
+
+        @Override void row(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            for (int i = 0; i < columns.size(); i++) {
+                Object v = value(rs.getObject(i + 1)); json.writeFieldName(columns.get(i));
+                if (v == null) json.writeNull();
+                else if (v instanceof Long l) json.writeNumber(l);
+                else if (v instanceof Integer n) json.writeNumber(n);
+                else if (v instanceof Double d) json.writeNumber(d);
+                else if (v instanceof BigDecimal d) json.writeNumber(d);
+                else if (v instanceof Boolean b) json.writeBoolean(b);
+                else json.writeString(v.toString());
+            }
+            json.writeEndObject(); json.writeRaw('\n');
+        }
+
+        @Override public void close() throws IOException { json.flush(); }
+    }
+
+    private static final class CsvRowWriter extends RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) { writer = new OutputStreamWriter(new BufferedOutputStream(out, 64 * 1024), StandardCharsets.UTF_8); }
+
+        @Override void header() throws IOException { for (int i = 0; i < columns.size(); i++) cell(i, columns.get(i)); writer.write("\r\n"); }
+
+        @Override void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < columns.size(); i++) { Object v = value(rs.getObject(i + 1)); cell(i, v == null ? "" : v.toString()); }
+            writer.write("\r\n");
+        }
+
+        private void cell(int index, String text) throws IOException {
+            if (index > 0) writer.write(',');
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) { writer.write(text); return; }
+            writer.write('"'); writer.write(text.replace("\"", "\"\"")); writer.write('"');
+        }
+
+        @Override public void close() throws IOException { writer.flush(); }
+    }
+}
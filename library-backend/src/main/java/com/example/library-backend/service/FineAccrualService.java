@@ -0,0 +1,105 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.entity.Loan;
+import com.example.library-backend.event.FineAccruedEvent;
+import com.example.library-backend.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps stored fines current so nothing has to compute them per row on read. Once a day every open overdue loan gets
+ * {@code fine_amount = days overdue * rate} with chunked set-based updates, and the change in each row feeds per-member
+ * running balances (in cents) whose sum is the library-wide total. Returns and deletions report their fine changes
+ * here after commit, and the balances are re-read from the table after every accrual run to correct any drift.
+ */
+@Service
+public class FineAccrualService {
+    private static final Logger logger = LoggerFactory.getLogger(FineAccrualService.class);
+
+    // Claims a chunk of loans not yet accrued through today (skipping rows a checkout or return is holding) and sets
+    // their fine in one statement, returning how much each loan's fine, and so its member's balance, moved.
+    private static final String ACCRUE_SQL = "WITH due AS (SELECT id, COALESCE(fine_amount, 0) AS old_fine FROM loans WHERE returned = false AND due_date < ? "
+            + "AND (fine_accrued_through IS NULL OR fine_accrued_through < ?) ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) "
+            + "UPDATE loans l SET fine_amount = (CAST(? AS date) - l.due_date) * CAST(? AS double precision), fine_accrued_through = ? FROM due WHERE l.id = due.id "
+            + "RETURNING l.id, l.member_id, CAST(ROUND(CAST((l.fine_amount - due.old_fine) * 100 AS numeric)) AS bigint)";
+    private static final String BALANCES_SQL = "SELECT member_id, CAST(ROUND(CAST(SUM(fine_amount) * 100 AS numeric)) AS bigint) FROM loans WHERE fine_amount > 0 GROUP BY member_id";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Value("${library.fines.chunk-size:5000}") private int chunkSize;
+
+    private volatile Map<Long, LongAdder> balances = new ConcurrentHashMap<>();
+    private volatile LongAdder totalCents = new LongAdder();
+    private volatile boolean ready;
+
+    // Catches up on days missed while the application was down.
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() { accrue(); }
+
+    @Scheduled(cron = "${library.fines.accrual-cron:0 5 0 * * *}")
+    public void accrue() { accrue(LocalDate.now()); }
+
+    public synchronized long accrue(LocalDate today) {
+        long start = System.currentTimeMillis(), updated = 0;
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        while (true) {
+            List<long[]> changes = tx.execute(status -> {
+                List<long[]> rows = new ArrayList<>();
+                jdbcTemplate.query(ACCRUE_SQL, (ResultSet rs) -> { rows.add(new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}); }, today, today, chunkSize, today, Loan.FINE_PER_DAY, today);
+                return rows;
+            });
+            for (long[] change : changes) { apply(change[1], change[2]); if (change[2] != 0) eventPublisher.publishEvent(new FineAccruedEvent(change[0], change[1], change[2], today)); }
+            updated += changes.size();
+            if (changes.size() < chunkSize) break;
+        }
+        reconcile();
+        logger.info("Accrued fines through {} for {} loans in {} ms; outstanding total {}", today, updated, System.currentTimeMillis() - start, getTotalOutstanding());
+        return updated;
+    }
+
+    // Rebuilds the running balances from the stored fines.
+    public synchronized void reconcile() {
+        Map<Long, LongAdder> fresh = new ConcurrentHashMap<>(); LongAdder total = new LongAdder();
+        jdbcTemplate.query(BALANCES_SQL, (ResultSet rs) -> { LongAdder balance = new LongAdder(); balance.add(rs.getLong(2)); fresh.put(rs.getLong(1), balance); total.add(rs.getLong(2)); });
+        balances = fresh; totalCents = total; ready = true;
+    }
+
+    // Called by the loan paths that set or drop a fine; applied once the change is committed.
+    public void recordChange(Long memberId, Double previousFine, Double newFine) {
+        long delta = cents(newFine) - cents(previousFine);
+        if (memberId == null || delta == 0) return;
+        TransactionHooks.afterCommit(() -> apply(memberId, delta));
+    }
+
+    public boolean isReady() { return ready; }
+
+    public double getTotalOutstanding() { return totalCents.sum() / 100.0; }
+
+    public double getMemberBalance(Long memberId) { LongAdder balance = balances.get(memberId); return balance == null ? 0.0 : balance.sum() / 100.0; }
+
+    private void apply(long memberId, long deltaCents) {
+        if (deltaCents == 0) return;
+        balances.computeIfAbsent(memberId, id -> new LongAdder()).add(deltaCents); totalCents.add(deltaCents);
+    }
+
+    private static long cents(Double amount) { return amount == null ? 0 : Math.round(amount * 100); }
+}
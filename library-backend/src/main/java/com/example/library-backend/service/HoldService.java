@@ -0,0 +1,175 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.dto.HoldPosition;
+import com.example.library-backend.entity.Book;
+import com.example.library-backend.entity.Hold;
+import com.example.library-backend.entity.Member;
+import com.example.library-backend.event.BookAvailabilityChangedEvent;
+import com.example.library-backend.event.HoldReadyEvent;
+import com.example.library-backend.repository.BookRepository;
+import com.example.library-backend.repository.HoldRepository;
+import com.example.library-backend.repository.LoanRepository;
+import com.example.library-backend.repository.MemberRepository;
+import com.example.library-backend.search.BookFacetIndex;
+import com.example.library-backend.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Per-book FIFO hold queues. Holds are stored in the holds table; the waiting ones are also kept in memory as one
+ * concurrent sorted set of hold ids per book (ids are issued in arrival order, so the smallest id is the head). A
+ * returned copy goes to the head of its book's queue instead of back on the shelf: the hold becomes READY for
+ * {@code library.holds.pickup-days} and the copy stays out of availableCopies until it is collected, the hold is
+ * cancelled or it expires, at which point it moves on to the next holder.
+ */
+@Service
+@Transactional
+public class HoldService {
+    private static final Logger logger = LoggerFactory.getLogger(HoldService.class);
+
+    @Autowired private HoldRepository holdRepository;
+    @Autowired private BookRepository bookRepository;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private MemberLoanTracker memberLoanTracker;
+    @Autowired private BookFacetIndex bookFacetIndex;
+    @Autowired private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Value("${library.holds.pickup-days:3}") private int pickupDays;
+
+    private final Map<Long, ConcurrentSkipListSet<Long>> queues = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        queues.clear();
+        jdbcTemplate.getJdbcTemplate().query("SELECT id, book_id FROM holds WHERE status = 'WAITING'", (ResultSet rs) -> { queue(rs.getLong(2)).add(rs.getLong(1)); });
+        logger.info("Loaded {} waiting holds across {} books", queues.values().stream().mapToInt(Set::size).sum(), queues.size());
+    }
+
+    public Hold placeHold(Long bookId, Long memberId) {
+        Book book = bookRepository.findById(bookId).orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + bookId));
+        Member member = memberRepository.findById(memberId).orElseThrow(() -> new IllegalArgumentException("Member not found with id: " + memberId));
+        if (!book.getActive()) throw new IllegalStateException("Book is not available for loan: " + book.getTitle());
+        if (!member.getActive()) throw new IllegalStateException("Member account is not active: " + member.getFullName());
+        boolean onLoan = memberLoanTracker.isReady() ? memberLoanTracker.hasActiveLoan(memberId, bookId) : loanRepository.existsActiveLoan(memberId, bookId);
+        if (onLoan) throw new IllegalStateException("Member already has this book on loan: " + book.getTitle());
+        if (holdRepository.existsOpenHold(bookId, memberId)) throw new IllegalStateException("Member already has a hold on this book: " + book.getTitle());
+        if (book.getAvailableCopies() > 0 && getQueueLength(bookId) == 0) throw new IllegalStateException("Copies are available, check the book out instead: " + book.getTitle());
+        Hold hold = holdRepository.save(Hold.builder().book(book).member(member).status(Hold.WAITING).build());
+        Long holdId = hold.getId();
+        // A copy may have come back between the availability check and the commit; serve the queue once more.
+        TransactionHooks.afterCommit(() -> { queue(bookId).add(holdId); newTransaction().executeWithoutResult(status -> serveWaiting(bookId)); });
+        return hold;
+    }
+
+    public Hold cancelHold(Long holdId) {
+        Hold hold = holdRepository.findById(holdId).orElseThrow(() -> new IllegalArgumentException("Hold not found with id: " + holdId));
+        Long bookId = hold.getBookId(); String status = hold.getStatus();
+        if (!Hold.WAITING.equals(status) && !Hold.READY.equals(status)) throw new IllegalStateException("Hold is already " + status.toLowerCase());
+        if (holdRepository.close(holdId, status, Hold.CANCELLED, LocalDateTime.now()) == 0) throw new IllegalStateException("Hold changed state, try again");
+        if (Hold.WAITING.equals(status)) TransactionHooks.afterCommit(() -> removeFromQueue(bookId, holdId)); else passOn(bookId);
+        return holdRepository.findById(holdId).orElseThrow();
+    }
+
+    // Gives a copy that just came back to the next waiting holder. Returns false when nobody is waiting, in which case
+    // the caller puts the copy back on the shelf.
+    public boolean assignCopy(Long bookId) {
+        ConcurrentSkipListSet<Long> queue = queues.get(bookId); if (queue == null) return false;
+        Long holdId;
+        while ((holdId = queue.pollFirst()) != null) {
+            Long claimed = holdId; TransactionHooks.afterRollback(() -> queue.add(claimed));
+            LocalDateTime now = LocalDateTime.now(), expiresAt = now.plusDays(pickupDays);
+            if (holdRepository.markReady(holdId, now, expiresAt) == 1) { eventPublisher.publishEvent(new HoldReadyEvent(holdId, bookId, expiresAt)); return true; }
+        }
+        return false;
+    }
+
+    // Collects the READY hold a member has on the book, if any; the copy reserved for it is then the one lent out.
+    public boolean fulfill(Long bookId, Long memberId) { return holdRepository.fulfill(bookId, memberId, LocalDateTime.now()) > 0; }
+
+    public Set<Long> fulfillAll(Long memberId, Collection<Long> bookIds) {
+        Set<Long> fulfilled = new HashSet<>(); if (bookIds.isEmpty()) return fulfilled;
+        jdbcTemplate.query("UPDATE holds SET status = 'FULFILLED', closed_at = :now WHERE member_id = :memberId AND status = 'READY' AND book_id IN (:bookIds) RETURNING book_id",
+                Map.of("now", LocalDateTime.now(), "memberId", memberId, "bookIds", bookIds), (ResultSet rs) -> { fulfilled.add(rs.getLong(1)); });
+        return fulfilled;
+    }
+
+    // Moves shelf copies to waiting holders, e.g. after copies were added to a book that has a queue.
+    public void serveWaiting(Long bookId) {
+        boolean changed = false;
+        while (getQueueLength(bookId) > 0 && bookRepository.allocateCopy(bookId) == 1) {
+            changed = true;
+            if (!assignCopy(bookId)) { bookRepository.releaseCopy(bookId); break; }
+        }
+        if (changed) syncAvailability(bookId);
+    }
+
+    @Scheduled(fixedDelayString = "${library.holds.expiry-check-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void expireHolds() {
+        List<Long> expired = holdRepository.findExpiredReadyIds(LocalDateTime.now());
+        for (Long holdId : expired) newTransaction().executeWithoutResult(status -> holdRepository.findById(holdId).ifPresent(hold -> {
+            if (holdRepository.close(holdId, Hold.READY, Hold.EXPIRED, LocalDateTime.now()) == 1) passOn(hold.getBookId());
+        }));
+        if (!expired.isEmpty()) logger.info("Expired {} uncollected holds", expired.size());
+    }
+
+    @Transactional(readOnly = true)
+    public HoldPosition getPosition(Long holdId) {
+        Hold hold = holdRepository.findById(holdId).orElseThrow(() -> new IllegalArgumentException("Hold not found with id: " + holdId));
+        ConcurrentSkipListSet<Long> queue = queues.get(hold.getBookId()); int length = queue == null ? 0 : queue.size();
+        int position = Hold.WAITING.equals(hold.getStatus()) && queue != null && queue.contains(holdId) ? queue.headSet(holdId).size() + 1 : 0;
+        return new HoldPosition(holdId, hold.getBookId(), hold.getStatus(), position, length, hold.getExpiresAt());
+    }
+
+    @Transactional(readOnly = true)
+    public List<Hold> findByMember(Long memberId) { return holdRepository.findByMemberId(memberId); }
+
+    public int getQueueLength(Long bookId) { ConcurrentSkipListSet<Long> queue = queues.get(bookId); return queue == null ? 0 : queue.size(); }
+
+    // A READY copy that was not collected goes to the next holder, or back on the shelf when the queue is empty.
+    private void passOn(Long bookId) {
+        if (assignCopy(bookId)) return;
+        if (bookRepository.releaseCopy(bookId) == 0) logger.warn("Book {} already had all copies available when an uncollected hold released one", bookId);
+        syncAvailability(bookId);
+    }
+
+    private void syncAvailability(Long bookId) {
+        bookRepository.findById(bookId).ifPresent(book -> {
+            int available = book.getAvailableCopies(); TransactionHooks.afterCommit(() -> bookFacetIndex.updateAvailability(bookId, available)); eventPublisher.publishEvent(new BookAvailabilityChangedEvent(bookId, available));
+        });
+    }
+
+    private void removeFromQueue(Long bookId, Long holdId) { ConcurrentSkipListSet<Long> queue = queues.get(bookId); if (queue != null) queue.remove(holdId); }
+
+    private ConcurrentSkipListSet<Long> queue(Long bookId) { return queues.computeIfAbsent(bookId, id -> new ConcurrentSkipListSet<>()); }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager); tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW); return tx;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.dto.ApiResponse;
+import com.example.library-backend.util.BoundedTtlCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response when a client retries a request with the same {@code Idempotency-Key}. Successful
+ * responses are kept as serialized JSON in a bounded TTL cache, and also in the idempotency_keys table when
+ * {@code library.idempotency.persist} is on, so a retry that lands on another node is answered the same way. A retry
+ * that arrives while the first attempt is still running waits for it instead of running the operation twice; with
+ * persistence on, the key is claimed in the table before the operation runs, so this holds across nodes too. Each key
+ * is bound to a hash of the caller and request body, and reusing it for a different request is answered with 422.
+ * Failed attempts are not stored and the client may try again with the same key.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    public static final String HEADER = "Idempotency-Key", REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 200;
+    // Status of a row claimed by a node that is still running the operation.
+    private static final int CLAIMED = 0;
+    private static final long POLL_MILLIS = 100;
+
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Value("${library.idempotency.max-entries:10000}") private int maxEntries;
+    @Value("${library.idempotency.ttl-minutes:1440}") private long ttlMinutes;
+    @Value("${library.idempotency.wait-ms:30000}") private long waitMillis;
+    @Value("${library.idempotency.persist:false}") private boolean persist;
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private BoundedTtlCache<String, StoredResponse> completed;
+
+    @PostConstruct
+    void init() { completed = new BoundedTtlCache<>(maxEntries, TimeUnit.MINUTES.toMillis(ttlMinutes)); }
+
+    // Runs the action once per (operation, key); without a key the action simply runs.
+    public ResponseEntity<?> execute(String key, String operation, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) return action.get();
+        if (key.length() > MAX_KEY_LENGTH) return ResponseEntity.badRequest().body(ApiResponse.error(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters"));
+        return execute(operation + " " + key, fingerprint(request), action);
+    }
+
+    @Scheduled(fixedDelayString = "${library.idempotency.purge-ms:600000}")
+    public void purge() {
+        completed.evictExpired();
+        if (persist) jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", LocalDateTime.now().minusMinutes(ttlMinutes));
+    }
+
+    private ResponseEntity<?> execute(String id, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        StoredResponse stored = completed.get(id); if (stored != null) return replay(stored, fingerprint);
+        CompletableFuture<StoredResponse> attempt = new CompletableFuture<>(), running = inFlight.putIfAbsent(id, attempt);
+        if (running != null) return await(running, id, fingerprint, action);
+        try {
+            stored = completed.get(id);
+            // A claim that disappears while waiting was released by a failed attempt, so try to claim the key again.
+            while (stored == null && persist && !claim(id, fingerprint)) stored = awaitClaim(id);
+            if (stored != null) { attempt.complete(stored); return replay(stored, fingerprint); }
+            ResponseEntity<?> response;
+            try { response = action.get(); } catch (RuntimeException e) { release(id); throw e; }
+            if (response.getStatusCode().is2xxSuccessful()) attempt.complete(store(id, fingerprint, response)); else { release(id); attempt.complete(null); }
+            return response;
+        } catch (RuntimeException e) {
+            attempt.completeExceptionally(e); throw e;
+        } finally {
+            inFlight.remove(id, attempt);
+        }
+    }
+
+    // A failed first attempt stored nothing, so the waiting retry gets to run the action itself.
+    private ResponseEntity<?> await(CompletableFuture<StoredResponse> running, String id, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        StoredResponse stored;
+        try { stored = running.get(waitMillis, TimeUnit.MILLISECONDS); }
+        catch (TimeoutException e) { return stillRunning(); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error("Interrupted while waiting for the original request")); }
+        catch (ExecutionException e) { stored = null; }
+        return stored != null ? replay(stored, fingerprint) : execute(id, fingerprint, action);
+    }
+
+    // Claims the key for this node; a claim older than the TTL was abandoned and is taken over.
+    private boolean claim(String id, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update("INSERT INTO idempotency_keys (idem_key, fingerprint, status, body, created_at) VALUES (?, ?, ?, NULL, ?) ON CONFLICT (idem_key) DO UPDATE "
+                + "SET fingerprint = EXCLUDED.fingerprint, status = EXCLUDED.status, body = NULL, created_at = EXCLUDED.created_at WHERE idempotency_keys.created_at < ?",
+                id, fingerprint, CLAIMED, now, now.minusMinutes(ttlMinutes)) == 1;
+    }
+
+    // Waits for the node holding the claim to store its response; returns null if the claim was released, and the
+    // still-claimed row once the wait runs out, which is answered with 409 or, for a different request, 422.
+    private StoredResponse awaitClaim(String id) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            List<StoredResponse> rows = jdbcTemplate.query("SELECT status, body, fingerprint FROM idempotency_keys WHERE idem_key = ?",
+                    (rs, i) -> new StoredResponse(rs.getInt(1), rs.getString(2), rs.getString(3)), id);
+            if (rows.isEmpty()) return null;
+            StoredResponse row = rows.get(0);
+            if (row.status() != CLAIMED) { completed.put(id, row); return row; }
+            if (System.currentTimeMillis() >= deadline) return row;
+            try { Thread.sleep(POLL_MILLIS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); return row; }
+        }
+    }
+
+    // Drops this node's claim after a failed attempt so the client can retry with the same key.
+    private void release(String id) {
+        if (!persist) return;
+        try { jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idem_key = ? AND status = ?", id, CLAIMED); }
+        catch (RuntimeException e) { logger.warn("Could not release idempotency claim {}: {}", id, e.getMessage()); }
+    }
+
+    private StoredResponse store(String id, String fingerprint, ResponseEntity<?> response) {
+        StoredResponse stored;
+        try { stored = new StoredResponse(response.getStatusCode().value(), objectMapper.writeValueAsString(response.getBody()), fingerprint); }
+        catch (JsonProcessingException e) { logger.warn("Could not store response for idempotent request {}: {}", id, e.getMessage()); release(id); return null; }
+        completed.put(id, stored);
+        // The operation has already committed; failing to share the response must not turn it into an error.
+        if (persist) try { jdbcTemplate.update("UPDATE idempotency_keys SET status = ?, body = ? WHERE idem_key = ?", stored.status(), stored.body(), id); }
+        catch (RuntimeException e) { logger.warn("Could not persist response for idempotent request {}: {}", id, e.getMessage()); }
+        return stored;
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String fingerprint) {
+        if (stored.fingerprint() != null && !stored.fingerprint().equals(fingerprint)) return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ApiResponse.error(HEADER + " was already used for a different request"));
+        if (stored.status() == CLAIMED) return stillRunning();
+        return ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true").contentType(MediaType.APPLICATION_JSON).body(stored.body());
+    }
+
+    private static ResponseEntity<?> stillRunning() { return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error("A request with this " + HEADER + " is still being processed")); }
+
+    // SHA-256 of the caller and the request body, so a key only replays for the request it was first used with.
+    private String fingerprint(Object request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String caller = authentication == null ? "" : authentication.getName();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(caller.getBytes(StandardCharsets.UTF_8)); digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) { throw new IllegalStateException("Could not fingerprint idempotent request", e); }
+    }
+
+    private record StoredResponse(int status, String body, String fingerprint) {}
+}
@@ -0,0 +1,78 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.event.LoanCreatedEvent;
+import com.example.library-backend.event.LoanDeletedEvent;
+import com.example.library-backend.event.LoanReturnedEvent;
+import com.example.library-backend.search.BookFacetIndex;
+import com.example.library-backend.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dashboard figures served from memory. Members, users and open loans are counters moved by the service mutations
+ * after commit; book counts come from the facet index, which already tracks every availability change; overdue loans
+ * and fines come from {@link DueDateTracker} and {@link FineAccrualService}. Everything is re-read from the database
+ * periodically (one statement) to correct drift from writes that bypass the services.
+ */
+@Service
+public class LibraryStats {
+    private static final Logger logger = LoggerFactory.getLogger(LibraryStats.class);
+    private static final String RECONCILE_SQL = "SELECT (SELECT COUNT(*) FROM books WHERE active = true), (SELECT COUNT(*) FROM books WHERE active = true AND available_copies > 0), "
+            + "(SELECT COUNT(*) FROM members WHERE active = true), (SELECT COUNT(*) FROM users WHERE active = true), (SELECT COUNT(*) FROM loans WHERE returned = false), "
+            + "(SELECT COUNT(*) FROM loans WHERE returned = false AND due_date < CURRENT_DATE), (SELECT COALESCE(SUM(fine_amount), 0) FROM loans)";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private BookFacetIndex bookFacetIndex;
+    @Autowired private DueDateTracker dueDateTracker;
+    @Autowired private FineAccrualService fineAccrualService;
+
+    private final AtomicLong totalBooks = new AtomicLong(), availableBooks = new AtomicLong(), members = new AtomicLong(), users = new AtomicLong(),
+            activeLoans = new AtomicLong(), overdueLoans = new AtomicLong();
+    private volatile double totalFines;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${library.dashboard.reconcile-ms:300000}", initialDelayString = "${library.dashboard.reconcile-ms:300000}")
+    public void reconcile() {
+        jdbcTemplate.query(RECONCILE_SQL, (ResultSet rs) -> {
+            totalBooks.set(rs.getLong(1)); availableBooks.set(rs.getLong(2)); members.set(rs.getLong(3)); users.set(rs.getLong(4));
+            activeLoans.set(rs.getLong(5)); overdueLoans.set(rs.getLong(6)); totalFines = rs.getDouble(7);
+        });
+        logger.debug("Reconciled dashboard counters: {}", snapshot());
+    }
+
+    public Map<String, Object> snapshot() {
+        long books = bookFacetIndex.isReady() ? bookFacetIndex.getActiveCount() : totalBooks.get(), available = bookFacetIndex.isReady() ? bookFacetIndex.getActiveAvailableCount() : availableBooks.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalBooks", books); stats.put("availableBooks", available); stats.put("borrowedBooks", books - available);
+        stats.put("totalMembers", members.get()); stats.put("totalUsers", users.get()); stats.put("activeLoans", activeLoans.get());
+        stats.put("overdueLoans", dueDateTracker.isReady() ? dueDateTracker.getOverdueCount() : overdueLoans.get());
+        stats.put("totalFines", fineAccrualService.isReady() ? fineAccrualService.getTotalOutstanding() : totalFines);
+        return stats;
+    }
+
+    // Called by the member and user services when a record becomes active (+1) or inactive (-1).
+    public void memberActivated(long delta) { TransactionHooks.afterCommit(() -> members.addAndGet(delta)); }
+    public void userActivated(long delta) { TransactionHooks.afterCommit(() -> users.addAndGet(delta)); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCreated(LoanCreatedEvent event) { activeLoans.incrementAndGet(); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReturned(LoanReturnedEvent event) { activeLoans.decrementAndGet(); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDeleted(LoanDeletedEvent event) { if (!event.isReturned()) activeLoans.decrementAndGet(); }
+}
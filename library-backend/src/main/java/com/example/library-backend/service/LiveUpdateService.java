@@ -0,0 +1,124 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.event.BookAvailabilityChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes dashboard and availability changes to staff screens over Server-Sent Events. Changes are coalesced for
+ * {@code library.live.window-ms}: only the latest available-copies figure per book and only the stats figures that
+ * moved are sent, and each window is serialized once for all clients. Every client has a small bounded queue drained by
+ * a shared sender pool; a client that falls {@code library.live.buffer} frames behind is disconnected and gets a fresh
+ * snapshot when its EventSource reconnects, so one slow browser never holds up the rest.
+ */
+@Service
+public class LiveUpdateService {
+    private static final Logger logger = LoggerFactory.getLogger(LiveUpdateService.class);
+
+    @Autowired private LibraryStats libraryStats;
+    @Autowired private ObjectMapper objectMapper;
+    @Value("${library.live.buffer:16}") private int bufferFrames;
+    @Value("${library.live.max-clients:5000}") private int maxClients;
+    @Value("${library.live.timeout-ms:1800000}") private long timeoutMillis;
+    @Value("${library.live.send-threads:4}") private int sendThreads;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> pendingAvailability = new ConcurrentHashMap<>();
+    private Map<String, Object> lastStats = Map.of();
+    private ExecutorService sender;
+
+    @PostConstruct
+    void start() { sender = Executors.newFixedThreadPool(sendThreads, runnable -> { Thread thread = new Thread(runnable, "live-update-sender"); thread.setDaemon(true); return thread; }); }
+
+    @PreDestroy
+    void stop() { sender.shutdownNow(); clients.forEach(client -> client.emitter.complete()); }
+
+    public SseEmitter subscribe() {
+        if (clients.size() >= maxClients) throw new IllegalStateException("Too many live update connections");
+        Client client = new Client(new SseEmitter(timeoutMillis), new ArrayBlockingQueue<>(bufferFrames));
+        client.emitter.onCompletion(() -> clients.remove(client)); client.emitter.onTimeout(() -> clients.remove(client)); client.emitter.onError(error -> clients.remove(client));
+        clients.add(client);
+        offer(client, frame("snapshot", Map.of("stats", libraryStats.snapshot())));
+        return client.emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAvailabilityChanged(BookAvailabilityChangedEvent event) { if (!clients.isEmpty()) pendingAvailability.put(event.getBookId(), event.getAvailableCopies()); }
+
+    @Scheduled(fixedDelayString = "${library.live.window-ms:500}")
+    public synchronized void flush() {
+        Map<Long, Integer> books = new HashMap<>();
+        for (Long bookId : pendingAvailability.keySet()) { Integer available = pendingAvailability.remove(bookId); if (available != null) books.put(bookId, available); }
+        if (clients.isEmpty()) { lastStats = Map.of(); return; }
+        Map<String, Object> stats = libraryStats.snapshot(), changed = new LinkedHashMap<>();
+        stats.forEach((key, value) -> { if (!Objects.equals(lastStats.get(key), value)) changed.put(key, value); });
+        lastStats = stats;
+        if (books.isEmpty() && changed.isEmpty()) return;
+        Map<String, Object> delta = new LinkedHashMap<>();
+        if (!changed.isEmpty()) delta.put("stats", changed);
+        if (!books.isEmpty()) delta.put("availability", books);
+        broadcast(frame("delta", delta));
+    }
+
+    // Comment frames keep proxies from closing idle connections and reveal clients that went away.
+    @Scheduled(fixedDelayString = "${library.live.heartbeat-ms:30000}")
+    public void heartbeat() { if (!clients.isEmpty()) broadcast(new Frame(null, null)); }
+
+    public int getClientCount() { return clients.size(); }
+
+    private void broadcast(Frame frame) { for (Client client : clients) offer(client, frame); }
+
+    private void offer(Client client, Frame frame) {
+        if (!client.queue.offer(frame)) { clients.remove(client); client.emitter.complete(); logger.debug("Dropped a live update client that fell {} frames behind", bufferFrames); return; }
+        if (client.draining.compareAndSet(false, true)) sender.execute(() -> drain(client));
+    }
+
+    private void drain(Client client) {
+        while (true) {
+            Frame frame;
+            while ((frame = client.queue.poll()) != null) {
+                try { client.emitter.send(frame.event()); } catch (IOException | IllegalStateException e) { clients.remove(client); client.queue.clear(); client.emitter.completeWithError(e); return; }
+            }
+            client.draining.set(false);
+            if (client.queue.isEmpty() || !client.draining.compareAndSet(false, true)) return;
+        }
+    }
+
+    private Frame frame(String name, Object payload) {
+        try { return new Frame(name, objectMapper.writeValueAsString(payload)); } catch (JsonProcessingException e) { throw new IllegalStateException("Could not serialize live update", e); }
+    }
+
+    // The payload is serialized once per window and shared; SseEventBuilder is mutable and not thread-safe, so each send gets its own.
+    private record Frame(String name, String json) {
+        SseEmitter.SseEventBuilder event() { return name == null ? SseEmitter.event().comment("ping") : SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON); }
+    }
+
+    private record Client(SseEmitter emitter, BlockingQueue<Frame> queue, AtomicBoolean draining) {
+        Client(SseEmitter emitter, BlockingQueue<Frame> queue) { this(emitter, queue, new AtomicBoolean()); }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.library-backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps the loans table down to the working set. Returned loans older than {@code library.archive.horizon-days} are
+ * moved to loans_archive in chunks, each chunk one DELETE ... RETURNING feeding an INSERT in its own transaction, so
+ * the move is atomic per row and never holds more than one chunk of locks. Loans that still carry a fine stay in the
+ * hot table because the outstanding fine balances are computed from it.
+ */
+@Service
+public class LoanArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(LoanArchiveService.class);
+
+    private static final String COLUMNS = "id, book_id, member_id, loan_date, due_date, return_date, actual_return_date, fine_amount, notes, created_at";
+    private static final String MOVE_SQL = "WITH moved AS (DELETE FROM loans WHERE id IN (SELECT id FROM loans WHERE returned = true AND actual_return_date < ? "
+            + "AND COALESCE(fine_amount, 0) = 0 ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING " + COLUMNS + ") "
+            + "INSERT INTO loans_archive (" + COLUMNS + ", archived_at) SELECT " + COLUMNS + ", ? FROM moved";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Value("${library.archive.horizon-days:365}") private int horizonDays;
+    @Value("${library.archive.batch-size:5000}") private int batchSize;
+
+    @Scheduled(cron = "${library.archive.cron:0 30 1 * * *}")
+    public void scheduledArchive() { archive(); }
+
+    public long archive() { return archive(horizonDays); }
+
+    public synchronized long archive(int olderThanDays) {
+        if (olderThanDays < 0) throw new IllegalArgumentException("Archive horizon cannot be negative");
+        long start = System.currentTimeMillis(), moved = 0; LocalDate cutoff = LocalDate.now().minusDays(olderThanDays);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        while (true) {
+            Integer count = tx.execute(status -> jdbcTemplate.update(MOVE_SQL, cutoff, batchSize, LocalDateTime.now()));
+            moved += count; if (count < batchSize) break;
+        }
+        logger.info("Archived {} loans returned before {} in {} ms", moved, cutoff, System.currentTimeMillis() - start);
+        return moved;
+    }
+}
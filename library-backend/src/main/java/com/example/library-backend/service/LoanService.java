@@ -1,57 +1,256 @@
 package com.example.library-backend.service;
 
+import com.example.library-backend.dto.BatchResult;
+import com.example.library-backend.dto.CursorPage;
+import com.example.library-backend.dto.LoanSummary;
 import com.example.library-backend.entity.Book;
 import com.example.library-backend.entity.Loan;
 import com.example.library-backend.entity.Member;
+import com.example.library-backend.event.BookAvailabilityChangedEvent;
+import com.example.library-backend.event.LoanCreatedEvent;
+import com.example.library-backend.event.LoanDeletedEvent;
+import com.example.library-backend.event.LoanRenewedEvent;
+import com.example.library-backend.event.LoanReturnedEvent;
+import com.example.library-backend.repository.ArchivedLoanRepository;
 import com.example.library-backend.repository.BookRepository;
 import com.example.library-backend.repository.LoanRepository;
 import com.example.library-backend.repository.MemberRepository;
+import com.example.library-backend.search.BookFacetIndex;
+import com.example.library-backend.util.KeysetCursor;
+import com.example.library-backend.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.ResultSet;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class LoanService {
+    private static final Logger logger = LoggerFactory.getLogger(LoanService.class);
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int ID_BATCH_SIZE = 1000;
     @Autowired private LoanRepository loanRepository; @Autowired private BookRepository bookRepository; @Autowired private MemberRepository memberRepository;
+    @Autowired private BookFacetIndex bookFacetIndex;
+    @Autowired private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired private FineAccrualService fineAccrualService;
+    @Autowired private DueDateTracker dueDateTracker;
+    @Autowired private HoldService holdService;
+    @Autowired private ArchivedLoanRepository archivedLoanRepository;
+    @Autowired private MemberLoanTracker memberLoanTracker;
+    @Autowired private ApplicationEventPublisher eventPublisher;
 
-    public List<Loan> findAll() { return loanRepository.findAll(); } public Optional<Loan> findById(Long id) { return loanRepository.findById(id); }
-    public List<Loan> findActiveLoans() { return loanRepository.findByReturnedFalse(); } public List<Loan> findByMember(Long memberId) { return loanRepository.findByMemberId(memberId); }
-    public List<Loan> findActiveLoansByMember(Long memberId) { return loanRepository.findActiveLoansByMember(memberId); } public List<Loan> findOverdueLoans() { return loanRepository.findOverdueLoans(LocalDate.now()); }
+    public List<LoanSummary> findAll() { return loanRepository.findAllSummaries(); } public Optional<Loan> findById(Long id) { return loanRepository.findWithDetailsById(id); }
+    public List<LoanSummary> findActiveLoans() { return loanRepository.findActiveSummaries(); } public List<LoanSummary> findByMember(Long memberId) { return loanRepository.findSummariesByMember(memberId); }
+    public List<LoanSummary> findActiveLoansByMember(Long memberId) { return loanRepository.findActiveSummariesByMember(memberId); } public List<LoanSummary> findOverdueLoans() { return dueDateTracker.isReady() ? findSummaries(dueDateTracker.getOverdueLoanIds()) : loanRepository.findOverdueSummaries(LocalDate.now()); }
+    public List<LoanSummary> findDueSoonLoans() { return findSummaries(dueDateTracker.getDueSoonLoanIds()); }
+
+    // Full borrowing history; the archive is only read when asked for.
+    public List<LoanSummary> findHistoryByMember(Long memberId, boolean includeArchived) {
+        return withArchived(loanRepository.findSummariesByMember(memberId), includeArchived ? archivedLoanRepository.findSummariesByMember(memberId) : List.of());
+    }
+    public List<LoanSummary> findHistoryByBook(Long bookId, boolean includeArchived) {
+        return withArchived(loanRepository.findSummariesByBook(bookId), includeArchived ? archivedLoanRepository.findSummariesByBook(bookId) : List.of());
+    }
+
+    public CursorPage<LoanSummary> findPage(String cursor, Integer limit, boolean activeOnly) {
+        PageRequest page = PageRequest.of(0, CursorPage.limit(limit));
+        if (cursor == null || cursor.isBlank()) return CursorPage.of(loanRepository.findFirstPage(activeOnly, page), loan -> KeysetCursor.encode(loan.getLoanDate(), loan.getId()));
+        KeysetCursor after = KeysetCursor.decode(cursor); LocalDate loanDate;
+        try { loanDate = LocalDate.parse(after.getKey()); } catch (DateTimeParseException e) { throw new IllegalArgumentException("Invalid cursor: " + cursor); }
+        return CursorPage.of(loanRepository.findPageAfter(activeOnly, loanDate, after.getId(), page), loan -> KeysetCursor.encode(loan.getLoanDate(), loan.getId()));
+    }
 
     public Loan createLoan(Long bookId, Long memberId, LocalDate dueDate, String notes) {
+        // A member collecting a READY hold takes the copy already set aside for them.
+        boolean fromHold = holdService.fulfill(bookId, memberId);
         Book book = bookRepository.findById(bookId).orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + bookId));
         Member member = memberRepository.findById(memberId).orElseThrow(() -> new IllegalArgumentException("Member not found with id: " + memberId));
         if (!book.getActive()) throw new IllegalStateException("Book is not available for loan: " + book.getTitle());
         if (!member.getActive()) throw new IllegalStateException("Member account is not active: " + member.getFullName());
-        if (book.getAvailableCopies() <= 0) throw new IllegalStateException("No copies available for loan for book: " + book.getTitle());
-        List<Loan> activeLoans = loanRepository.findActiveLoansByMember(memberId); boolean alreadyLoaned = activeLoans.stream().anyMatch(loan -> loan.getBook().getId().equals(bookId));
-        if (alreadyLoaned) throw new IllegalStateException("Member already has this book on loan: " + book.getTitle());
+        if (!fromHold && book.getAvailableCopies() <= 0) throw new IllegalStateException("No copies available for loan for book: " + book.getTitle());
+        String refused = reserveSlot(member, book, 0); if (refused != null) throw new IllegalStateException(refused);
         if (dueDate == null) dueDate = LocalDate.now().plusDays(14); if (dueDate.isBefore(LocalDate.now())) throw new IllegalArgumentException("Due date cannot be in the past");
-        book.setAvailableCopies(book.getAvailableCopies() - 1); bookRepository.save(book);
-        Loan loan = Loan.builder().book(book).member(member).loanDate(LocalDate.now()).dueDate(dueDate).notes(notes).returned(false).fineAmount(0.0).build();
-        return loanRepository.save(loan);
+        // The loan row goes in first and the copy is claimed last, so the book row is locked only until commit.
+        Loan loan = loanRepository.save(Loan.builder().book(book).member(member).loanDate(LocalDate.now()).dueDate(dueDate).notes(notes).returned(false).fineAmount(0.0).build());
+        if (!fromHold && bookRepository.allocateCopy(bookId) == 0) throw new IllegalStateException("No copies available for loan for book: " + book.getTitle());
+        Loan saved = reload(loan.getId()); syncAvailability(saved.getBook());
+        eventPublisher.publishEvent(new LoanCreatedEvent(saved.getId(), bookId, memberId, saved.getDueDate())); return saved;
     }
 
     public Loan returnLoan(Long loanId) {
         Loan loan = loanRepository.findById(loanId).orElseThrow(() -> new IllegalArgumentException("Loan not found with id: " + loanId));
-        if (loan.getReturned()) throw new IllegalStateException("Loan already returned"); loan.setReturned(true); loan.setActualReturnDate(LocalDate.now());
-        if (loan.isOverdue()) loan.setFineAmount(loan.calculateFine()); Loan savedLoan = loanRepository.save(loan);
-        Book book = loan.getBook(); book.setAvailableCopies(book.getAvailableCopies() + 1); bookRepository.save(book); return savedLoan;
+        if (loan.getReturned()) throw new IllegalStateException("Loan already returned"); Double fine = loan.isOverdue() ? loan.calculateFine() : loan.getFineAmount();
+        if (loanRepository.markReturned(loanId, LocalDate.now(), fine) == 0) throw new IllegalStateException("Loan already returned");
+        fineAccrualService.recordChange(loan.getMember().getId(), loan.getFineAmount(), fine);
+        // A copy coming back to a book that already has every copy on the shelf means the counts have drifted; the return still goes through.
+        if (!holdService.assignCopy(loan.getBook().getId()) && bookRepository.releaseCopy(loan.getBook().getId()) == 0)
+            logger.warn("Book {} already had all copies available when loan {} was returned", loan.getBook().getId(), loanId);
+        Loan saved = reload(loanId); syncAvailability(saved.getBook());
+        eventPublisher.publishEvent(new LoanReturnedEvent(loanId, saved.getBook().getId(), saved.getMember().getId(), saved.getDueDate(), fine)); return saved;
+    }
+
+    // Kiosk checkout: the member is validated once, the books are read in one query, copies are claimed with one
+    // conditional UPDATE and the loans are inserted with one multi-row INSERT. Items that cannot be lent are reported
+    // individually and do not stop the rest of the batch.
+    public BatchResult createLoans(Long memberId, List<Long> bookIds, LocalDate dueDate, String notes) {
+        if (bookIds == null || bookIds.isEmpty()) throw new IllegalArgumentException("At least one book ID is required");
+        if (bookIds.size() > MAX_BATCH_SIZE) throw new IllegalArgumentException("A batch can contain at most " + MAX_BATCH_SIZE + " items");
+        Member member = memberRepository.findById(memberId).orElseThrow(() -> new IllegalArgumentException("Member not found with id: " + memberId));
+        if (!member.getActive()) throw new IllegalStateException("Member account is not active: " + member.getFullName());
+        if (dueDate == null) dueDate = LocalDate.now().plusDays(14); if (dueDate.isBefore(LocalDate.now())) throw new IllegalArgumentException("Due date cannot be in the past");
+
+        Map<Long, Book> books = new HashMap<>(); for (Book book : bookRepository.findAllById(new LinkedHashSet<>(bookIds))) books.put(book.getId(), book);
+        Map<Integer, String> errors = new HashMap<>(); Set<Long> seen = new HashSet<>(); List<Long> wanted = new ArrayList<>();
+        for (int i = 0; i < bookIds.size(); i++) {
+            Long bookId = bookIds.get(i); Book book = bookId == null ? null : books.get(bookId);
+            if (book == null) errors.put(i, "Book not found with id: " + bookId);
+            else if (!seen.add(bookId)) errors.put(i, "Book appears more than once in this batch: " + book.getTitle());
+            else if (!book.getActive()) errors.put(i, "Book is not available for loan: " + book.getTitle());
+            else { String refused = reserveSlot(member, book, wanted.size()); if (refused != null) errors.put(i, refused); else wanted.add(bookId); }
+        }
+
+        Set<Long> fromHolds = holdService.fulfillAll(memberId, wanted); List<Long> fromShelf = wanted.stream().filter(id -> !fromHolds.contains(id)).toList();
+        Map<Long, Integer> claimed = new HashMap<>();
+        if (!fromShelf.isEmpty()) jdbcTemplate.query("UPDATE books SET available_copies = available_copies - 1, updated_at = :now WHERE id IN (:ids) AND active = true AND available_copies > 0 RETURNING id, available_copies",
+                Map.of("ids", fromShelf, "now", LocalDateTime.now()), (ResultSet rs) -> { claimed.put(rs.getLong(1), rs.getInt(2)); });
+        List<Long> lent = new ArrayList<>(); for (Long bookId : wanted) if (fromHolds.contains(bookId) || claimed.containsKey(bookId)) lent.add(bookId);
+        for (Long bookId : wanted) if (!lent.contains(bookId)) memberLoanTracker.release(memberId, bookId);
+        Map<Long, Long> loanIds = insertLoans(memberId, lent, dueDate, notes);
+        claimed.forEach(this::syncAvailability);
+
+        BatchResult result = new BatchResult();
+        for (int i = 0; i < bookIds.size(); i++) {
+            Long bookId = bookIds.get(i);
+            if (errors.containsKey(i)) result.fail(bookId, null, errors.get(i));
+            else if (loanIds.containsKey(bookId)) { result.ok(bookId, loanIds.get(bookId), dueDate, 0.0); eventPublisher.publishEvent(new LoanCreatedEvent(loanIds.get(bookId), bookId, memberId, dueDate)); }
+            else result.fail(bookId, null, "No copies available for loan for book: " + books.get(bookId).getTitle());
+        }
+        return result;
+    }
+
+    // Returns a scanned pile in one transaction: one read for the loans, one JDBC batch to close them and one to put
+    // the copies nobody is holding back on the shelf.
+    public BatchResult returnLoans(List<Long> loanIds) {
+        if (loanIds == null || loanIds.isEmpty()) throw new IllegalArgumentException("At least one loan ID is required");
+        if (loanIds.size() > MAX_BATCH_SIZE) throw new IllegalArgumentException("A batch can contain at most " + MAX_BATCH_SIZE + " items");
+        Map<Long, Loan> loans = new HashMap<>();
+        jdbcTemplate.query("SELECT id, book_id, member_id, due_date, returned, fine_amount FROM loans WHERE id IN (:ids)", Map.of("ids", new LinkedHashSet<>(loanIds)), (ResultSet rs) -> {
+            Loan loan = Loan.builder().id(rs.getLong("id")).book(Book.builder().id(rs.getLong("book_id")).build()).member(Member.builder().id(rs.getLong("member_id")).build()).dueDate(rs.getObject("due_date", LocalDate.class))
+                    .returned(rs.getBoolean("returned")).fineAmount(rs.getDouble("fine_amount")).build();
+            loans.put(loan.getId(), loan);
+        });
+
+        LocalDate today = LocalDate.now(); Map<Integer, String> errors = new HashMap<>(); Set<Long> seen = new HashSet<>(); List<Loan> closing = new ArrayList<>();
+        Map<Long, Double> previousFines = new HashMap<>();
+        for (int i = 0; i < loanIds.size(); i++) {
+            Long loanId = loanIds.get(i); Loan loan = loanId == null ? null : loans.get(loanId);
+            if (loan == null) errors.put(i, "Loan not found with id: " + loanId);
+            else if (!seen.add(loanId)) errors.put(i, "Loan appears more than once in this batch: " + loanId);
+            else if (loan.getReturned()) errors.put(i, "Loan already returned");
+            else { previousFines.put(loanId, loan.getFineAmount()); if (loan.isOverdue()) loan.setFineAmount(loan.calculateFine()); closing.add(loan); }
+        }
+
+        int[] updated = closing.isEmpty() ? new int[0] : jdbcTemplate.getJdbcTemplate().batchUpdate("UPDATE loans SET returned = true, actual_return_date = ?, fine_amount = ? WHERE id = ? AND returned = false",
+                closing.stream().map(loan -> new Object[]{today, loan.getFineAmount(), loan.getId()}).toList());
+        Set<Long> closed = new HashSet<>(); Map<Long, Integer> released = new HashMap<>();
+        for (int i = 0; i < closing.size(); i++) if (updated[i] != 0) {
+            Loan loan = closing.get(i); closed.add(loan.getId());
+            if (!holdService.assignCopy(loan.getBook().getId())) released.merge(loan.getBook().getId(), 1, Integer::sum);
+            fineAccrualService.recordChange(loan.getMember().getId(), previousFines.get(loan.getId()), loan.getFineAmount());
+            eventPublisher.publishEvent(new LoanReturnedEvent(loan.getId(), loan.getBook().getId(), loan.getMember().getId(), loan.getDueDate(), loan.getFineAmount()));
+        }
+        if (!released.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.getJdbcTemplate().batchUpdate("UPDATE books SET available_copies = LEAST(total_copies, available_copies + ?), updated_at = ? WHERE id = ?",
+                    released.entrySet().stream().map(e -> new Object[]{e.getValue(), now, e.getKey()}).toList());
+            jdbcTemplate.query("SELECT id, available_copies FROM books WHERE id IN (:ids)", Map.of("ids", released.keySet()), (ResultSet rs) -> { syncAvailability(rs.getLong(1), rs.getInt(2)); });
+        }
+
+        BatchResult result = new BatchResult();
+        for (int i = 0; i < loanIds.size(); i++) {
+            Long loanId = loanIds.get(i);
+            if (errors.containsKey(i)) result.fail(null, loanId, errors.get(i));
+            else if (closed.contains(loanId)) { Loan loan = loans.get(loanId); result.ok(loan.getBook().getId(), loanId, loan.getDueDate(), loan.getFineAmount()); }
+            else result.fail(loans.get(loanId).getBook().getId(), loanId, "Loan already returned");
+        }
+        return result;
     }
 
     public Loan renewLoan(Long loanId, LocalDate newDueDate) {
-        Loan loan = loanRepository.findById(loanId).orElseThrow(() -> new IllegalArgumentException("Loan not found with id: " + loanId));
+        Loan loan = loanRepository.findWithDetailsById(loanId).orElseThrow(() -> new IllegalArgumentException("Loan not found with id: " + loanId));
         if (loan.getReturned()) throw new IllegalStateException("Cannot renew a returned loan"); if (newDueDate == null) newDueDate = LocalDate.now().plusDays(14);
         if (newDueDate.isBefore(loan.getDueDate())) throw new IllegalArgumentException("New due date cannot be before current due date");
-        if (newDueDate.isBefore(LocalDate.now())) throw new IllegalArgumentException("Due date cannot be in the past"); loan.setDueDate(newDueDate); return loanRepository.save(loan);
+        if (newDueDate.isBefore(LocalDate.now())) throw new IllegalArgumentException("Due date cannot be in the past"); loan.setDueDate(newDueDate);
+        Loan saved = loanRepository.save(loan); eventPublisher.publishEvent(new LoanRenewedEvent(loanId, saved.getBook().getId(), saved.getMember().getId(), newDueDate)); return saved;
     }
 
-    public void deleteById(Long id) { if (loanRepository.existsById(id)) loanRepository.deleteById(id); else throw new IllegalArgumentException("Loan not found with id: " + id); }
-    public Long getActiveLoanCount() { return loanRepository.countActiveLoans(); } public Long getOverdueLoanCount() { return loanRepository.countOverdueLoans(LocalDate.now()); }
-    public Double calculateTotalFines() { return loanRepository.calculateTotalFines(LocalDate.now()); }
+    public void deleteById(Long id) {
+        Loan loan = loanRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Loan not found with id: " + id));
+        fineAccrualService.recordChange(loan.getMember().getId(), loan.getFineAmount(), 0.0); loanRepository.delete(loan);
+        eventPublisher.publishEvent(new LoanDeletedEvent(id, loan.getBook().getId(), loan.getMember().getId(), loan.getReturned()));
+    }
+    public Long getActiveLoanCount() { return loanRepository.countActiveLoans(); } public Long getOverdueLoanCount() { return dueDateTracker.isReady() ? dueDateTracker.getOverdueCount() : loanRepository.countOverdueLoans(LocalDate.now()); }
+    public Double calculateTotalFines() { return fineAccrualService.isReady() ? fineAccrualService.getTotalOutstanding() : loanRepository.sumFines(); }
+    public Double getMemberFineBalance(Long memberId) { return fineAccrualService.getMemberBalance(memberId); }
+    public Map<String, Object> getLoanAllowance(Long memberId) {
+        Member member = memberRepository.findById(memberId).orElseThrow(() -> new IllegalArgumentException("Member not found with id: " + memberId));
+        long active = memberLoanTracker.isReady() ? memberLoanTracker.getActiveCount(memberId) : loanRepository.countActiveLoansByMember(memberId); int limit = memberLoanTracker.getLimit(member);
+        return Map.of("membershipType", member.getMembershipType() == null ? Member.STANDARD : member.getMembershipType(), "activeLoans", active, "loanLimit", limit, "remaining", Math.max(0, limit - active));
+    }
+    private Loan reload(Long loanId) { return loanRepository.findWithDetailsById(loanId).orElseThrow(() -> new IllegalStateException("Loan disappeared: " + loanId)); }
+    private List<LoanSummary> findSummaries(List<Long> ids) {
+        List<LoanSummary> loans = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) loans.addAll(loanRepository.findSummariesByIds(ids.subList(from, Math.min(ids.size(), from + ID_BATCH_SIZE))));
+        loans.sort(Comparator.comparing(LoanSummary::getDueDate).thenComparing(LoanSummary::getId)); return loans;
+    }
+    // Claims the member's slot for the book and returns why it was refused, or null. Uses the in-memory loan sets once
+    // they are seeded and the indexed queries before that, with the member row locked until commit so concurrent
+    // checkouts for one member are counted one after another; pending counts books already accepted earlier in a batch.
+    private String reserveSlot(Member member, Book book, int pending) {
+        int limit = memberLoanTracker.getLimit(member); MemberLoanTracker.Reservation reservation;
+        if (memberLoanTracker.isReady()) reservation = memberLoanTracker.reserve(member.getId(), book.getId(), limit);
+        else {
+            jdbcTemplate.queryForObject("SELECT id FROM members WHERE id = :id FOR UPDATE", Map.of("id", member.getId()), Long.class);
+            if (loanRepository.existsActiveLoan(member.getId(), book.getId())) reservation = MemberLoanTracker.Reservation.ALREADY_ON_LOAN;
+            else reservation = loanRepository.countActiveLoansByMember(member.getId()) + pending >= limit ? MemberLoanTracker.Reservation.LIMIT_REACHED : MemberLoanTracker.Reservation.OK;
+        }
+        return switch (reservation) {
+            case OK -> null;
+            case ALREADY_ON_LOAN -> "Member already has this book on loan: " + book.getTitle();
+            case LIMIT_REACHED -> "Member has reached the loan limit of " + limit + " books";
+        };
+    }
+    private List<LoanSummary> withArchived(List<LoanSummary> hot, List<LoanSummary> archived) {
+        if (archived.isEmpty()) return hot; List<LoanSummary> loans = new ArrayList<>(hot.size() + archived.size()); loans.addAll(hot); loans.addAll(archived);
+        loans.sort(Comparator.comparing(LoanSummary::getLoanDate, Comparator.nullsLast(Comparator.reverseOrder())).thenComparing(LoanSummary::getId, Comparator.reverseOrder())); return loans;
+    }
+    private Map<Long, Long> insertLoans(Long memberId, List<Long> bookIds, LocalDate dueDate, String notes) {
+        Map<Long, Long> loanIds = new HashMap<>(); if (bookIds.isEmpty()) return loanIds;
+        StringBuilder sql = new StringBuilder("INSERT INTO loans (book_id, member_id, loan_date, due_date, returned, fine_amount, notes, created_at) VALUES ");
+        List<Object> args = new ArrayList<>(); LocalDate today = LocalDate.now(); LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < bookIds.size(); i++) { sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, false, 0, ?, ?)"); args.addAll(Arrays.asList(bookIds.get(i), memberId, today, dueDate, notes, now)); }
+        jdbcTemplate.getJdbcTemplate().query(sql.append(" RETURNING id, book_id").toString(), (ResultSet rs) -> { loanIds.put(rs.getLong(2), rs.getLong(1)); }, args.toArray());
+        return loanIds;
+    }
+    private void syncAvailability(Book book) { syncAvailability(book.getId(), book.getAvailableCopies()); }
+    private void syncAvailability(Long bookId, int available) { TransactionHooks.afterCommit(() -> bookFacetIndex.updateAvailability(bookId, available)); eventPublisher.publishEvent(new BookAvailabilityChangedEvent(bookId, available)); }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.entity.Member;
+import com.example.library-backend.event.LoanCreatedEvent;
+import com.example.library-backend.event.LoanDeletedEvent;
+import com.example.library-backend.event.LoanReturnedEvent;
+import com.example.library-backend.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The set of book ids each member currently has on loan, so checkout can test for a duplicate loan and for the
+ * member's borrowing limit in constant time. A checkout reserves its book here before the loan row is written; the
+ * reservation is dropped again if the transaction rolls back, and loan lifecycle events keep the sets current after
+ * commit. Until the sets are seeded, callers fall back to the indexed queries on the loans table. Events that arrive
+ * while the seed query streams are buffered and replayed on the seeded sets before they go live, so a loan returned
+ * after the query's snapshot is not resurrected by its row.
+ */
+@Service
+public class MemberLoanTracker {
+    private static final Logger logger = LoggerFactory.getLogger(MemberLoanTracker.class);
+
+    public enum Reservation { OK, ALREADY_ON_LOAN, LIMIT_REACHED }
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Value("#{${library.loans.limits:{'STANDARD': 5}}}") private Map<String, Integer> limits;
+    @Value("${library.loans.default-limit:5}") private int defaultLimit;
+    @Value("${library.loans.seed-fetch-size:5000}") private int seedFetchSize;
+
+    private volatile Map<Long, Set<Long>> active = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    // Lifecycle changes seen before the sets are live; null afterwards. Guarded by this.
+    private List<Consumer<Map<Long, Set<Long>>>> buffered = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long start = System.currentTimeMillis();
+        synchronized (this) { if (buffered == null) { buffered = new ArrayList<>(); ready = false; } }
+        Map<Long, Set<Long>> seeded = new ConcurrentHashMap<>();
+        // Streamed through a cursor, which PostgreSQL only uses inside a transaction.
+        TransactionTemplate tx = new TransactionTemplate(transactionManager); tx.setReadOnly(true);
+        tx.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            var ps = connection.prepareStatement("SELECT member_id, book_id FROM loans WHERE returned = false");
+            ps.setFetchSize(seedFetchSize); return ps;
+        }, (ResultSet rs) -> { add(seeded, rs.getLong(1), rs.getLong(2)); }));
+        synchronized (this) { buffered.forEach(change -> change.accept(seeded)); buffered = null; active = seeded; ready = true; }
+        logger.info("Tracking open loans for {} members in {} ms", seeded.size(), System.currentTimeMillis() - start);
+    }
+
+    // Atomically checks the member's open loans and, if the book may be lent, claims the slot for it.
+    public Reservation reserve(Long memberId, Long bookId, int limit) {
+        Reservation[] result = {Reservation.OK};
+        active.compute(memberId, (id, books) -> {
+            if (books == null) books = ConcurrentHashMap.newKeySet();
+            if (books.contains(bookId)) result[0] = Reservation.ALREADY_ON_LOAN; else if (books.size() >= limit) result[0] = Reservation.LIMIT_REACHED; else books.add(bookId);
+            return books.isEmpty() ? null : books;
+        });
+        if (result[0] == Reservation.OK) TransactionHooks.afterRollback(() -> remove(active, memberId, bookId));
+        return result[0];
+    }
+
+    public void release(Long memberId, Long bookId) { remove(active, memberId, bookId); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCreated(LoanCreatedEvent event) { apply(sets -> add(sets, event.getMemberId(), event.getBookId())); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReturned(LoanReturnedEvent event) { apply(sets -> remove(sets, event.getMemberId(), event.getBookId())); }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDeleted(LoanDeletedEvent event) { if (!event.isReturned()) apply(sets -> remove(sets, event.getMemberId(), event.getBookId())); }
+
+    public boolean isReady() { return ready; }
+
+    public int getLimit(Member member) {
+        String type = member.getMembershipType() == null ? Member.STANDARD : member.getMembershipType().toUpperCase();
+        return limits.getOrDefault(type, defaultLimit);
+    }
+
+    public int getActiveCount(Long memberId) { Set<Long> books = active.get(memberId); return books == null ? 0 : books.size(); }
+
+    public boolean hasActiveLoan(Long memberId, Long bookId) { Set<Long> books = active.get(memberId); return books != null && books.contains(bookId); }
+
+    private synchronized void apply(Consumer<Map<Long, Set<Long>>> change) { if (buffered != null) buffered.add(change); else change.accept(active); }
+
+    private static void add(Map<Long, Set<Long>> sets, Long memberId, Long bookId) { sets.compute(memberId, (id, books) -> { if (books == null) books = ConcurrentHashMap.newKeySet(); books.add(bookId); return books; }); }
+
+    private static void remove(Map<Long, Set<Long>> sets, Long memberId, Long bookId) { sets.computeIfPresent(memberId, (id, books) -> { books.remove(bookId); return books.isEmpty() ? null : books; }); }
+}
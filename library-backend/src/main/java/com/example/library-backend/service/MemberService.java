@@ -1,25 +1,64 @@
 package com.example.library-backend.service;
 
+import com.example.library-backend.dto.CursorPage;
 import com.example.library-backend.entity.Member;
 import com.example.library-backend.repository.MemberRepository;
+import com.example.library-backend.search.MemberSearchIndex;
+import com.example.library-backend.search.Suggestion;
+import com.example.library-backend.util.KeysetCursor;
+import com.example.library-backend.util.TransactionHooks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @Transactional
 public class MemberService {
+    private static final int DEFAULT_FUZZY_LIMIT = 20;
     @Autowired private MemberRepository memberRepository;
+    @Autowired private LibraryStats libraryStats;
+    @Autowired private MemberSearchIndex memberSearchIndex;
 
     public List<Member> findAll() { return memberRepository.findByActiveTrue(); }
+    public CursorPage<Member> findPage(String cursor, Integer limit) {
+        PageRequest page = PageRequest.of(0, CursorPage.limit(limit));
+        if (cursor == null || cursor.isBlank()) return CursorPage.of(memberRepository.findFirstPage(page), member -> KeysetCursor.encode(member.getLastName(), member.getId()));
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return CursorPage.of(memberRepository.findPageAfter(after.getKey(), after.getId(), page), member -> KeysetCursor.encode(member.getLastName(), member.getId()));
+    }
     public Optional<Member> findById(Long id) { return memberRepository.findByIdAndActiveTrue(id); }
-    public Member save(Member member) { if (member.getMembershipId() == null) member.setMembershipId(generateMembershipId()); return memberRepository.save(member); }
-    public void deleteById(Long id) { memberRepository.findById(id).ifPresent(member -> { member.setActive(false); memberRepository.save(member); }); }
-    public List<Member> searchMembers(String keyword) { return memberRepository.searchMembers(keyword); }
+    public Member save(Member member) {
+        if (member.getMembershipId() == null) member.setMembershipId(generateMembershipId()); boolean added = member.getId() == null && !Boolean.FALSE.equals(member.getActive());
+        Member saved = memberRepository.save(member); reindex(saved); if (added) libraryStats.memberActivated(1); return saved;
+    }
+    public void deleteById(Long id) {
+        memberRepository.findById(id).ifPresent(member -> { boolean wasActive = Boolean.TRUE.equals(member.getActive()); member.setActive(false); memberRepository.save(member);
+            TransactionHooks.afterCommit(() -> memberSearchIndex.remove(id)); if (wasActive) libraryStats.memberActivated(-1); });
+    }
+    public List<Member> searchMembers(String keyword) {
+        List<Member> members = memberRepository.searchMembers(keyword);
+        return members.isEmpty() ? fuzzySearchMembers(keyword, DEFAULT_FUZZY_LIMIT) : members;
+    }
+    public List<Member> fuzzySearchMembers(String keyword, int limit) {
+        if (keyword == null || keyword.trim().isEmpty() || !memberSearchIndex.isReady()) return List.of();
+        List<Long> ids = memberSearchIndex.fuzzySearch(keyword.trim(), limit); if (ids.isEmpty()) return List.of();
+        Map<Long, Integer> rank = new HashMap<>(); for (int i = 0; i < ids.size(); i++) rank.put(ids.get(i), i);
+        List<Member> members = new ArrayList<>(memberRepository.findAllById(ids)); members.removeIf(member -> !Boolean.TRUE.equals(member.getActive()));
+        members.sort(Comparator.comparing(member -> rank.get(member.getId()))); return members;
+    }
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty() || !memberSearchIndex.isReady()) return List.of();
+        return memberSearchIndex.suggest(prefix, limit);
+    }
     public Optional<Member> findByEmail(String email) { return memberRepository.findByEmail(email); }
     public Optional<Member> findByMembershipId(String membershipId) { return memberRepository.findByMembershipId(membershipId); }
     public Long getTotalMemberCount() { Long count = memberRepository.countActiveMembers(); return count != null ? count : 0L; }
@@ -27,7 +66,9 @@ public class MemberService {
     public Member updateMember(Long id, Member memberDetails) {
         Optional<Member> memberOpt = memberRepository.findById(id); if (memberOpt.isPresent()) {
             Member member = memberOpt.get(); member.setFirstName(memberDetails.getFirstName()); member.setLastName(memberDetails.getLastName()); member.setEmail(memberDetails.getEmail());
-            member.setPhone(memberDetails.getPhone()); member.setAddress(memberDetails.getAddress()); member.setDateOfBirth(memberDetails.getDateOfBirth()); return memberRepository.save(member);
+            member.setPhone(memberDetails.getPhone()); member.setAddress(memberDetails.getAddress()); member.setDateOfBirth(memberDetails.getDateOfBirth());
+            if (memberDetails.getMembershipType() != null) member.setMembershipType(memberDetails.getMembershipType()); Member saved = memberRepository.save(member); reindex(saved); return saved;
         } throw new IllegalArgumentException("Member not found with id: " + id);
     }
+    private void reindex(Member member) { TransactionHooks.afterCommit(() -> memberSearchIndex.index(member)); }
 }
\ No newline at end of file
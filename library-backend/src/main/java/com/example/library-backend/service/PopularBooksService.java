@@ -0,0 +1,167 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.dto.PopularBook;
+import com.example.library-backend.entity.Book;
+import com.example.library-backend.event.LoanCreatedEvent;
+import com.example.library-backend.repository.BookRepository;
+import com.example.library-backend.util.CountMinSketch;
+import com.example.library-backend.util.TopKTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * "Most borrowed this week" and "trending now" from memory in a fixed footprint. Checkouts go into one count-min
+ * sketch per day for the last {@value #DAYS} days and into an exponentially decayed sketch with half-life
+ * {@code library.popular.half-life-hours}; a top-K tracker per view keeps the candidate books. Trending ranks the
+ * decayed count against what the book's weekly rate alone would produce, so a steady favourite scores about 1 and a
+ * sudden run scores well above it. The decayed sketch uses forward decay: each add is weighted 2^(age of landmark /
+ * half-life), so no counter is touched as time passes. A reconciliation job rebuilds everything from exact counts on
+ * the loans table to remove sketch error and missed events.
+ */
+@Service
+public class PopularBooksService {
+    private static final Logger logger = LoggerFactory.getLogger(PopularBooksService.class);
+    private static final int DAYS = 7;
+    private static final double MAX_EXPONENT = 40;
+    private static final String DAILY_SQL = "SELECT loan_date, book_id, COUNT(*) FROM loans WHERE loan_date >= ? GROUP BY loan_date, book_id";
+    private static final String DECAYED_SQL = "SELECT book_id, SUM(power(2, -EXTRACT(EPOCH FROM (CAST(? AS timestamp) - COALESCE(created_at, CAST(loan_date AS timestamp)))) / ?)) FROM loans "
+            + "WHERE COALESCE(created_at, CAST(loan_date AS timestamp)) >= ? GROUP BY book_id";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private BookRepository bookRepository;
+    @Value("${library.popular.enabled:true}") private boolean enabled;
+    @Value("${library.popular.sketch-width:2048}") private int width;
+    @Value("${library.popular.sketch-depth:4}") private int depth;
+    @Value("${library.popular.candidates:256}") private int candidates;
+    @Value("${library.popular.half-life-hours:6}") private double halfLifeHours;
+    @Value("${library.popular.trending-min-loans:3}") private double trendingMinLoans;
+
+    private State state;
+    // Checkouts (book id, millis) seen while a reconcile is querying; replayed into its fresh state before the swap.
+    private List<long[]> pending;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${library.popular.reconcile-ms:900000}", initialDelayString = "${library.popular.reconcile-ms:900000}")
+    public void reconcile() {
+        if (!enabled) return;
+        synchronized (this) { pending = new ArrayList<>(); }
+        long start = System.currentTimeMillis();
+        try {
+            LocalDate today = LocalDate.now(); LocalDateTime now = LocalDateTime.now();
+            State fresh = new State(today, System.currentTimeMillis()); Set<Long> seen = new HashSet<>();
+            jdbcTemplate.query(DAILY_SQL, (ResultSet rs) -> {
+                long day = rs.getObject(1, LocalDate.class).toEpochDay();
+                if (day <= today.toEpochDay()) { fresh.days[slot(day)].add(rs.getLong(2), rs.getLong(3)); seen.add(rs.getLong(2)); }
+            }, today.minusDays(DAYS - 1));
+            for (Long bookId : seen) fresh.weekly.offer(bookId, fresh.weekCount(bookId));
+            // Exact decayed counts, weighted to the fresh landmark; loans older than 20 half-lives contribute nothing measurable.
+            jdbcTemplate.query(DECAYED_SQL, (ResultSet rs) -> { fresh.recent.offer(rs.getLong(1), fresh.decayed.add(rs.getLong(1), rs.getDouble(2))); },
+                    now, halfLifeHours * 3600, now.minusMinutes((long) (halfLifeHours * 60 * 20)));
+            synchronized (this) {
+                for (long[] loan : pending) { fresh.roll(LocalDate.now()); fresh.record(loan[0], loan[1]); }
+                state = fresh;
+            }
+        } finally {
+            synchronized (this) { pending = null; }
+        }
+        logger.info("Reconciled popular and trending books in {} ms", System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onCreated(LoanCreatedEvent event) {
+        if (event.getBookId() == null) return;
+        long now = System.currentTimeMillis();
+        if (pending != null) pending.add(new long[] {event.getBookId(), now});
+        if (state != null) { state.roll(LocalDate.now()); state.record(event.getBookId(), now); }
+    }
+
+    public synchronized List<PopularBook> getPopular(int limit) {
+        if (state == null) return List.of();
+        state.roll(LocalDate.now());
+        List<PopularBook> books = new ArrayList<>();
+        for (TopKTracker.Entry entry : state.weekly.top(clamp(limit))) books.add(new PopularBook(entry.key(), null, null, entry.score(), 0));
+        return describe(books);
+    }
+
+    public List<PopularBook> getTrending(int limit) {
+        List<PopularBook> books = new ArrayList<>();
+        synchronized (this) {
+            if (state == null) return List.of();
+            long now = System.currentTimeMillis(); state.roll(LocalDate.now());
+            double decay = state.decayFactor(now), steadyShare = halfLifeHours / Math.log(2) / (DAYS * 24);
+            for (TopKTracker.Entry entry : state.recent.top(candidates)) {
+                double recent = entry.score() * decay; if (recent < trendingMinLoans) continue;
+                books.add(new PopularBook(entry.key(), null, null, recent, recent / (state.weekCount(entry.key()) * steadyShare + 1)));
+            }
+        }
+        books.sort(Comparator.comparingDouble(PopularBook::getScore).reversed());
+        return describe(books.subList(0, Math.min(clamp(limit), books.size())));
+    }
+
+    // Fills in titles with one lookup; books deleted since they were counted are dropped.
+    private List<PopularBook> describe(List<PopularBook> books) {
+        Map<Long, Book> byId = bookRepository.findAllById(books.stream().map(PopularBook::getBookId).toList()).stream().collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<PopularBook> described = new ArrayList<>(books.size());
+        for (PopularBook book : books) {
+            Book found = byId.get(book.getBookId()); if (found == null || !Boolean.TRUE.equals(found.getActive())) continue;
+            book.setTitle(found.getTitle()); book.setAuthor(found.getAuthor()); described.add(book);
+        }
+        return described;
+    }
+
+    private int clamp(int limit) { return Math.max(1, Math.min(limit, candidates)); }
+
+    private static int slot(long epochDay) { return (int) Math.floorMod(epochDay, DAYS); }
+
+    private final class State {
+        final CountMinSketch[] days = new CountMinSketch[DAYS];
+        final CountMinSketch decayed = new CountMinSketch(width, depth);
+        final TopKTracker weekly = new TopKTracker(candidates), recent = new TopKTracker(candidates);
+        long today, landmarkMillis;
+
+        State(LocalDate today, long landmarkMillis) {
+            for (int i = 0; i < DAYS; i++) days[i] = new CountMinSketch(width, depth);
+            this.today = today.toEpochDay(); this.landmarkMillis = landmarkMillis;
+        }
+
+        void record(long bookId, long nowMillis) {
+            days[slot(today)].add(bookId, 1); weekly.offer(bookId, weekCount(bookId));
+            double exponent = (nowMillis - landmarkMillis) / (halfLifeHours * 3_600_000);
+            // Forward-decay weights grow without bound; move the landmark before they lose precision.
+            if (exponent > MAX_EXPONENT) { decayed.scale(Math.pow(2, -exponent)); landmarkMillis = nowMillis; exponent = 0; recent.rescore(decayed::estimate); }
+            recent.offer(bookId, decayed.add(bookId, Math.pow(2, exponent)));
+        }
+
+        // Clears the slots of days that have left the window and drops their counts from the weekly ranking.
+        void roll(LocalDate date) {
+            long day = date.toEpochDay(); if (day <= today) return;
+            for (long d = today + 1; d <= Math.min(day, today + DAYS); d++) days[slot(d)].clear();
+            today = day; weekly.rescore(this::weekCount);
+        }
+
+        double weekCount(long bookId) { double count = 0; for (CountMinSketch sketch : days) count += sketch.estimate(bookId); return count; }
+
+        double decayFactor(long nowMillis) { return Math.pow(2, -(nowMillis - landmarkMillis) / (halfLifeHours * 3_600_000)); }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.dto.RelatedBook;
+import com.example.library-backend.entity.Book;
+import com.example.library-backend.event.LoanCreatedEvent;
+import com.example.library-backend.repository.BookRepository;
+import com.example.library-backend.util.CoOccurrenceMatrix;
+import com.example.library-backend.util.LongIntHashMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * "Borrowers also borrowed" for books and members, from a {@link CoOccurrenceMatrix} over every member's loan history
+ * (loans and loans_archive). The matrix is built in parallel at startup and nightly, and each first-time checkout is
+ * folded in from the member's history on a background thread, so lookups never touch the loan tables and checkouts
+ * never wait for the history query. Checkouts folded in while a rebuild runs are replayed into the new matrix before it
+ * replaces the old one. Only the most recent
+ * {@code library.recommendations.max-history} books of a member count, which keeps prolific borrowers from
+ * dominating and bounds the work per checkout.
+ */
+@Service
+public class RecommendationService {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationService.class);
+    private static final int MAX_RESULTS = 100;
+    private static final String HISTORIES_SQL = "SELECT member_id, book_id FROM (SELECT member_id, book_id, loan_date FROM loans UNION ALL "
+            + "SELECT member_id, book_id, loan_date FROM loans_archive) h ORDER BY member_id, loan_date DESC";
+    private static final String MEMBER_HISTORY_SQL = "SELECT book_id, COUNT(*) FROM (SELECT book_id, loan_date FROM loans WHERE member_id = ? UNION ALL "
+            + "SELECT book_id, loan_date FROM loans_archive WHERE member_id = ?) h GROUP BY book_id ORDER BY MAX(loan_date) DESC LIMIT ?";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private BookRepository bookRepository;
+    @Value("${library.recommendations.enabled:true}") private boolean enabled;
+    @Value("${library.recommendations.neighbors:50}") private int neighbors;
+    @Value("${library.recommendations.max-history:200}") private int maxHistory;
+    @Value("${library.recommendations.parallelism:0}") private int parallelism;
+    @Value("${library.recommendations.fetch-size:10000}") private int fetchSize;
+
+    private volatile CoOccurrenceMatrix matrix;
+    // Books checked out per member and not folded in yet; one history query covers all of a member's pending books.
+    private final Map<Long, Set<Long>> queued = new HashMap<>();
+    // Guards pending and the swap of matrix; rebuild() holds the monitor of this for its whole run.
+    private final Object swap = new Object();
+    // Borrowings folded in while a rebuild is reading histories; replayed into the new matrix before the swap.
+    private List<Borrow> pending;
+    private ExecutorService updater;
+
+    @PostConstruct
+    void start() { updater = Executors.newSingleThreadExecutor(runnable -> { Thread thread = new Thread(runnable, "recommendation-updater"); thread.setDaemon(true); return thread; }); }
+
+    @PreDestroy
+    void stop() { updater.shutdownNow(); }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.recommendations.rebuild-cron:0 45 3 * * *}")
+    public synchronized void rebuild() {
+        if (!enabled) return;
+        synchronized (swap) { pending = new ArrayList<>(); }
+        try { build(); } finally { synchronized (swap) { pending = null; } }
+    }
+
+    private void build() {
+        long start = System.currentTimeMillis();
+        long[] ids = jdbcTemplate.queryForList("SELECT id FROM books ORDER BY id", Long.class).stream().mapToLong(Long::longValue).toArray();
+        LongIntHashMap index = new LongIntHashMap(ids.length);
+        for (int i = 0; i < ids.length; i++) index.put(ids[i], i);
+        Histories histories = new Histories(ids.length);
+        // Streamed through a cursor, which PostgreSQL only uses inside a transaction.
+        TransactionTemplate tx = new TransactionTemplate(transactionManager); tx.setReadOnly(true);
+        tx.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            var ps = connection.prepareStatement(HISTORIES_SQL); ps.setFetchSize(fetchSize); return ps;
+        }, (ResultSet rs) -> { int book = index.get(rs.getLong(2)); if (book >= 0) histories.add(rs.getLong(1), book); }));
+        int[] offsets = histories.offsets(), books = Arrays.copyOf(histories.books, histories.size);
+        CoOccurrenceMatrix built = CoOccurrenceMatrix.build(ids, offsets, books, neighbors, parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        synchronized (swap) { for (Borrow borrow : pending) built.addBorrow(borrow.bookId(), borrow.others()); matrix = built; }
+        logger.info("Built co-borrowing matrix for {} books from {} member histories in {} ms", ids.length, offsets.length - 1, System.currentTimeMillis() - start);
+    }
+
+    // Only queues the checkout; a batch checkout by one member is folded in with a single history query.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCreated(LoanCreatedEvent event) {
+        if (event.getMemberId() == null || event.getBookId() == null) return;
+        synchronized (swap) { if (matrix == null && pending == null) return; }
+        synchronized (queued) {
+            Set<Long> books = queued.get(event.getMemberId());
+            if (books != null) { books.add(event.getBookId()); return; }
+            queued.put(event.getMemberId(), new LinkedHashSet<>(List.of(event.getBookId())));
+        }
+        updater.execute(() -> update(event.getMemberId()));
+    }
+
+    // A repeat loan of a book the member has had before adds nothing.
+    private void update(Long memberId) {
+        Set<Long> books; synchronized (queued) { books = queued.remove(memberId); }
+        try {
+            List<long[]> history = history(memberId);
+            for (Long bookId : books) {
+                long[] others = new long[maxHistory]; int count = 0; boolean repeat = false;
+                for (long[] row : history) {
+                    if (row[0] == bookId) repeat = row[1] > 1; else if (count < others.length) others[count++] = row[0];
+                }
+                if (!repeat) apply(new Borrow(bookId, Arrays.copyOf(others, count)));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not fold checkouts of member {} into recommendations: {}", memberId, e.getMessage());
+        }
+    }
+
+    private void apply(Borrow borrow) {
+        CoOccurrenceMatrix current;
+        synchronized (swap) { if (pending != null) pending.add(borrow); current = matrix; }
+        if (current != null) current.addBorrow(borrow.bookId(), borrow.others());
+    }
+
+    public List<RelatedBook> getRelated(Long bookId, int limit) {
+        CoOccurrenceMatrix current = matrix; if (current == null) return List.of();
+        return describe(current.related(bookId, clamp(limit)));
+    }
+
+    public List<RelatedBook> getRecommendations(Long memberId, int limit) {
+        CoOccurrenceMatrix current = matrix; if (current == null) return List.of();
+        long[] history = history(memberId).stream().mapToLong(row -> row[0]).toArray();
+        return describe(current.recommend(history, clamp(limit)));
+    }
+
+    // The member's distinct books, most recent first, with how many times each was borrowed.
+    private List<long[]> history(Long memberId) {
+        return jdbcTemplate.query(MEMBER_HISTORY_SQL, (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)}, memberId, memberId, maxHistory);
+    }
+
+    // Keeps the ranking; books deleted or deactivated since the matrix was built are dropped.
+    private List<RelatedBook> describe(List<CoOccurrenceMatrix.Scored> scored) {
+        Map<Long, Book> byId = bookRepository.findAllById(scored.stream().map(CoOccurrenceMatrix.Scored::bookId).toList()).stream().collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<RelatedBook> books = new ArrayList<>(scored.size());
+        for (CoOccurrenceMatrix.Scored entry : scored) {
+            Book book = byId.get(entry.bookId()); if (book == null || !Boolean.TRUE.equals(book.getActive())) continue;
+            books.add(new RelatedBook(book.getId(), book.getTitle(), book.getAuthor(), entry.score()));
+        }
+        return books;
+    }
+
+    private static int clamp(int limit) { return Math.max(1, Math.min(limit, MAX_RESULTS)); }
+
+    private record Borrow(long bookId, long[] others) {}
+
+    // Member histories in compressed form, filled from rows ordered by member and most recent loan first.
+    private final class Histories {
+        final int[] lastMember;
+        int[] books = new int[1024], starts = new int[1024];
+        int size, memberCount, memberSize;
+        long currentMember = Long.MIN_VALUE;
+
+        Histories(int bookCount) { lastMember = new int[bookCount]; }
+
+        void add(long memberId, int book) {
+            if (memberId != currentMember) {
+                currentMember = memberId; memberCount++; memberSize = 0;
+                if (memberCount == starts.length) starts = Arrays.copyOf(starts, memberCount * 2);
+                starts[memberCount - 1] = size;
+            }
+            if (memberSize >= maxHistory || lastMember[book] == memberCount) return;
+            lastMember[book] = memberCount; memberSize++;
+            if (size == books.length) books = Arrays.copyOf(books, size * 2);
+            books[size++] = book;
+        }
+
+        int[] offsets() { int[] offsets = Arrays.copyOf(starts, memberCount + 1); offsets[memberCount] = size; return offsets; }
+    }
+}
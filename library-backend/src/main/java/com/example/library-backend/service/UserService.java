@@ -1,54 +1,86 @@
 package com.example.library-backend.service;
 
+import com.example.library-backend.dto.CursorPage;
 import com.example.library-backend.entity.User;
 import com.example.library-backend.repository.UserRepository;
+import com.example.library-backend.security.CustomUserDetailsService;
+import com.example.library-backend.security.PasswordHashingService;
+import com.example.library-backend.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @Transactional
 public class UserService {
-    @Autowired private UserRepository userRepository; @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private UserRepository userRepository; @Autowired private PasswordHashingService passwordHashingService; @Autowired private LibraryStats libraryStats;
+    @Autowired private CustomUserDetailsService userDetailsService; @Autowired private PlatformTransactionManager transactionManager;
 
     public List<User> findAll() { return userRepository.findByActiveTrue(); } public Optional<User> findById(Long id) { return userRepository.findByIdAndActiveTrue(id); }
-    public User save(User user) { return userRepository.save(user); }
-    public void deleteById(Long id) { userRepository.findById(id).ifPresent(user -> { user.setActive(false); userRepository.save(user); }); }
+    public CursorPage<User> findPage(String cursor, Integer limit) {
+        PageRequest page = PageRequest.of(0, CursorPage.limit(limit));
+        if (cursor == null || cursor.isBlank()) return CursorPage.of(userRepository.findFirstPage(page), user -> KeysetCursor.encode(user.getUsername(), user.getId()));
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return CursorPage.of(userRepository.findPageAfter(after.getKey(), after.getId(), page), user -> KeysetCursor.encode(user.getUsername(), user.getId()));
+    }
+    public User save(User user) { boolean added = user.getId() == null && Boolean.TRUE.equals(user.getActive()); User saved = userRepository.save(user); if (added) libraryStats.userActivated(1); return saved; }
+    public void deleteById(Long id) { userRepository.findById(id).ifPresent(user -> { if (Boolean.TRUE.equals(user.getActive())) libraryStats.userActivated(-1); user.setActive(false); userRepository.save(user); userDetailsService.evict(user.getUsername()); }); }
 
+    // Password hashing can wait for the bounded hashing pool, so createUser, updateUser and changePassword hash first and
+    // only then open their transaction, instead of holding a connection while queued.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User createUser(CreateUserRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) throw new IllegalArgumentException("Username already exists: " + request.getUsername());
-        if (request.getEmail() != null && userRepository.existsByEmail(request.getEmail())) throw new IllegalArgumentException("Email already exists: " + request.getEmail());
         String password = request.getPassword(); if (password == null || password.trim().isEmpty()) password = generateRandomPassword();
-        User user = User.builder().username(request.getUsername()).password(passwordEncoder.encode(password)).fullName(request.getFullName()).email(request.getEmail())
-                .role(request.getRole() != null ? request.getRole() : "ROLE_USER").active(true).systemGenerated(false).build();
-        return userRepository.save(user);
+        String hash = passwordHashingService.encode(password);
+        return inTransaction(() -> {
+            if (userRepository.existsByUsername(request.getUsername())) throw new IllegalArgumentException("Username already exists: " + request.getUsername());
+            if (request.getEmail() != null && userRepository.existsByEmail(request.getEmail())) throw new IllegalArgumentException("Email already exists: " + request.getEmail());
+            User user = User.builder().username(request.getUsername()).password(hash).fullName(request.getFullName()).email(request.getEmail())
+                    .role(request.getRole() != null ? request.getRole() : "ROLE_USER").active(true).systemGenerated(false).build();
+            User saved = userRepository.save(user); libraryStats.userActivated(1); return saved;
+        });
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User updateUser(Long id, CreateUserRequest request) {
-        Optional<User> userOpt = userRepository.findById(id); if (userOpt.isPresent()) {
+        String hash = request.getPassword() != null && !request.getPassword().trim().isEmpty() ? passwordHashingService.encode(request.getPassword()) : null;
+        return inTransaction(() -> { Optional<User> userOpt = userRepository.findById(id); if (userOpt.isPresent()) {
             User user = userOpt.get(); if (!user.getUsername().equals(request.getUsername()) && userRepository.existsByUsername(request.getUsername())) throw new IllegalArgumentException("Username already exists: " + request.getUsername());
             if (request.getEmail() != null && !request.getEmail().equals(user.getEmail()) && userRepository.existsByEmail(request.getEmail())) throw new IllegalArgumentException("Email already exists: " + request.getEmail());
+            userDetailsService.evict(user.getUsername()); userDetailsService.evict(request.getUsername());
             user.setUsername(request.getUsername()); user.setFullName(request.getFullName()); user.setEmail(request.getEmail());
-            if (request.getRole() != null) user.setRole(request.getRole()); if (request.getPassword() != null && !request.getPassword().trim().isEmpty()) user.setPassword(passwordEncoder.encode(request.getPassword()));
+            if (request.getRole() != null) user.setRole(request.getRole()); if (hash != null) user.setPassword(hash);
             return userRepository.save(user);
-        } throw new IllegalArgumentException("User not found with id: " + id);
+        } throw new IllegalArgumentException("User not found with id: " + id); });
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User changePassword(Long userId, String newPassword) {
-        Optional<User> userOpt = userRepository.findById(userId); if (userOpt.isPresent()) {
-            User user = userOpt.get(); user.setPassword(passwordEncoder.encode(newPassword)); return userRepository.save(user);
-        } throw new IllegalArgumentException("User not found with id: " + userId);
+        String hash = passwordHashingService.encode(newPassword);
+        return inTransaction(() -> { Optional<User> userOpt = userRepository.findById(userId); if (userOpt.isPresent()) {
+            User user = userOpt.get(); user.setPassword(hash); userDetailsService.evict(user.getUsername()); return userRepository.save(user);
+        } throw new IllegalArgumentException("User not found with id: " + userId); });
+    }
+
+    // Stores a hash recomputed at the current cost factor after a successful login; a no-op if the password changed since.
+    public void upgradePasswordHash(Long userId, String verifiedHash, String newHash) {
+        userRepository.findById(userId).ifPresent(user -> { if (userRepository.replacePasswordHash(userId, verifiedHash, newHash) == 1) userDetailsService.evict(user.getUsername()); });
     }
 
     public List<User> findByRole(String role) { return userRepository.findByRole(role); } public Long getTotalUserCount() { Long count = userRepository.countActiveUsers(); return count != null ? count : 0L; }
+    private <T> T inTransaction(Supplier<T> work) { return new TransactionTemplate(transactionManager).execute(status -> work.get()); }
     private String generateRandomPassword() { return "Lib@" + UUID.randomUUID().toString().substring(0, 8); }
-    public User deactivateUser(Long userId) { Optional<User> userOpt = userRepository.findById(userId); if (userOpt.isPresent()) { User user = userOpt.get(); user.setActive(false); return userRepository.save(user); } throw new IllegalArgumentException("User not found with id: " + userId); }
-    public User activateUser(Long userId) { Optional<User> userOpt = userRepository.findById(userId); if (userOpt.isPresent()) { User user = userOpt.get(); user.setActive(true); return userRepository.save(user); } throw new IllegalArgumentException("User not found with id: " + userId); }
+    public User deactivateUser(Long userId) { Optional<User> userOpt = userRepository.findById(userId); if (userOpt.isPresent()) { User user = userOpt.get(); if (Boolean.TRUE.equals(user.getActive())) libraryStats.userActivated(-1); user.setActive(false); userDetailsService.evict(user.getUsername()); return userRepository.save(user); } throw new IllegalArgumentException("User not found with id: " + userId); }
+    public User activateUser(Long userId) { Optional<User> userOpt = userRepository.findById(userId); if (userOpt.isPresent()) { User user = userOpt.get(); if (!Boolean.TRUE.equals(user.getActive())) libraryStats.userActivated(1); user.setActive(true); userDetailsService.evict(user.getUsername()); return userRepository.save(user); } throw new IllegalArgumentException("User not found with id: " + userId); }
 
     public static class CreateUserRequest { private String username; private String password; private String email; private String fullName; private String role;
         public String getUsername() { return username; } public void setUsername(String username) { this.username = username; } public String getPassword() { return password; } public void setPassword(String password) { this.password = password; }
@@ -0,0 +1,60 @@
+package com.example.library-backend.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded map whose entries expire a fixed time after they were written. Eviction is least-recently-used once
+ * {@code maxEntries} is reached; expired entries are dropped when read and by {@link #evictExpired()}. All methods are
+ * synchronized, so callers should keep loading work outside of it.
+ */
+public class BoundedTtlCache<K, V> {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public BoundedTtlCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("Cache size must be positive");
+        if (ttlMillis <= 0) throw new IllegalArgumentException("Cache TTL must be positive");
+        this.maxEntries = maxEntries; this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) { return size() > BoundedTtlCache.this.maxEntries; }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key); if (entry == null) return null;
+        if (entry.expiresAt <= System.currentTimeMillis()) { entries.remove(key); return null; }
+        return entry.value;
+    }
+
+    public void put(K key, V value) { put(key, value, ttlMillis); }
+
+    // Stores the value for at most ttlMillis, e.g. to stop a cached token from outliving its own expiry.
+    public synchronized void put(K key, V value, long ttlMillis) {
+        if (ttlMillis <= 0) { entries.remove(key); return; }
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + Math.min(ttlMillis, this.ttlMillis)));
+    }
+
+    public synchronized V remove(K key) { Entry<V> entry = entries.remove(key); return entry == null ? null : entry.value; }
+
+    public synchronized int removeIf(Predicate<? super V> predicate) {
+        int removed = 0;
+        for (Iterator<Entry<V>> it = entries.values().iterator(); it.hasNext(); ) if (predicate.test(it.next().value)) { it.remove(); removed++; }
+        return removed;
+    }
+
+    public synchronized int evictExpired() {
+        long now = System.currentTimeMillis(); int removed = 0;
+        for (Iterator<Entry<V>> it = entries.values().iterator(); it.hasNext(); ) if (it.next().expiresAt <= now) { it.remove(); removed++; }
+        return removed;
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized void clear() { entries.clear(); }
+
+    private record Entry<V>(V value, long expiresAt) {}
+}
@@ -0,0 +1,231 @@
+package com.example.library-backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sparse item-to-item co-occurrence: for every book, the books most often borrowed by the same members, ranked by
+ * cosine similarity co / sqrt(borrowers(a) * borrowers(b)). Books are mapped to dense int indices and each row keeps
+ * at most {@code neighbors} entries in parallel int arrays, so memory is O(books * neighbors) however many pairs exist.
+ * <p>
+ * {@link #build} computes exact rows in parallel with fork/join: each task owns a range of rows and counts its
+ * co-borrowed books in a per-thread dense counter array, so rows are filled without locking. {@link #addBorrow} folds
+ * in one new borrowing; rows that are full use the Space-Saving rule (the smallest entry is replaced and inherits its
+ * count), which keeps frequent neighbours and overestimates only entries that were just admitted. Readers share a
+ * read lock; updates take the write lock for a few hundred array writes.
+ */
+public class CoOccurrenceMatrix {
+    private static final int LEAF_ROWS = 256;
+
+    private final int neighbors;
+    private final LongIntHashMap index;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] ids;
+    private int[] borrowers;
+    private Row[] rows;
+    private int size;
+
+    private CoOccurrenceMatrix(long[] ids, int[] borrowers, Row[] rows, int neighbors) {
+        this.ids = ids; this.borrowers = borrowers; this.rows = rows; this.size = ids.length; this.neighbors = neighbors;
+        this.index = new LongIntHashMap(ids.length);
+        for (int i = 0; i < ids.length; i++) index.put(ids[i], i);
+    }
+
+    /**
+     * Builds the matrix from member histories in compressed form: the books of member m are
+     * {@code books[offsets[m]] .. books[offsets[m + 1] - 1]}, as indices into {@code ids}, each listed once per member.
+     */
+    public static CoOccurrenceMatrix build(long[] ids, int[] offsets, int[] books, int neighbors, int parallelism) {
+        if (neighbors < 1) throw new IllegalArgumentException("Neighbours must be positive");
+        int n = ids.length, members = offsets.length - 1;
+        int[] borrowers = new int[n];
+        for (int i = 0; i < offsets[members]; i++) borrowers[books[i]]++;
+        // Invert to book -> members so each row can be computed on its own.
+        int[] bookOffsets = new int[n + 1];
+        for (int b = 0; b < n; b++) bookOffsets[b + 1] = bookOffsets[b] + borrowers[b];
+        int[] bookMembers = new int[offsets[members]], fill = Arrays.copyOf(bookOffsets, n);
+        for (int m = 0; m < members; m++) for (int i = offsets[m]; i < offsets[m + 1]; i++) bookMembers[fill[books[i]]++] = m;
+        Row[] rows = new Row[n];
+        // A pool of its own so the per-thread scratch arrays go away with its threads.
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            ThreadLocal<int[][]> scratch = ThreadLocal.withInitial(() -> new int[][]{new int[n], new int[n]});
+            pool.invoke(new RowTask(0, n, offsets, books, bookOffsets, bookMembers, rows, neighbors, scratch));
+        } finally {
+            pool.shutdown();
+        }
+        return new CoOccurrenceMatrix(ids, borrowers, rows, neighbors);
+    }
+
+    public static CoOccurrenceMatrix empty(int neighbors) { return new CoOccurrenceMatrix(new long[0], new int[0], new Row[0], neighbors); }
+
+    // Records that a member borrowed bookId for the first time, having previously borrowed the others.
+    public void addBorrow(long bookId, long[] others) {
+        lock.writeLock().lock();
+        try {
+            int b = indexOrAdd(bookId); borrowers[b]++;
+            for (long other : others) {
+                if (other == bookId) continue;
+                int c = indexOrAdd(other);
+                row(b).increment(c, neighbors); row(c).increment(b, neighbors);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The k books most similar to bookId, best first.
+    public List<Scored> related(long bookId, int k) {
+        lock.readLock().lock();
+        try {
+            int b = index.get(bookId); if (b < 0 || rows[b] == null) return List.of();
+            Row row = rows[b]; double[] scores = new double[row.size];
+            for (int i = 0; i < row.size; i++) scores[i] = similarity(b, row.neighbors[i], row.counts[i]);
+            return top(row.neighbors, scores, row.size, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The k books with the highest summed similarity to the history, excluding the history itself.
+    public List<Scored> recommend(long[] history, int k) {
+        lock.readLock().lock();
+        try {
+            LongIntHashMap positions = new LongIntHashMap(history.length * neighbors);
+            int[] candidates = new int[history.length * neighbors]; double[] scores = new double[candidates.length]; int count = 0;
+            for (long bookId : history) { int b = index.get(bookId); if (b >= 0) positions.put(b, Integer.MAX_VALUE); }
+            for (long bookId : history) {
+                int b = index.get(bookId); if (b < 0 || rows[b] == null) continue;
+                Row row = rows[b];
+                for (int i = 0; i < row.size; i++) {
+                    int c = row.neighbors[i], position = positions.get(c);
+                    if (position == Integer.MAX_VALUE) continue;
+                    if (position < 0) { position = count++; positions.put(c, position); candidates[position] = c; }
+                    scores[position] += similarity(b, c, row.counts[i]);
+                }
+            }
+            return top(candidates, scores, count, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() { lock.readLock().lock(); try { return size; } finally { lock.readLock().unlock(); } }
+
+    private double similarity(int a, int b, int co) { return co / Math.sqrt((double) Math.max(1, borrowers[a]) * Math.max(1, borrowers[b])); }
+
+    // Best k of the first count candidates via a size-k min-heap of positions.
+    private List<Scored> top(int[] candidates, double[] scores, int count, int k) {
+        int[] heap = new int[Math.max(0, Math.min(k, count))]; int size = 0;
+        for (int p = 0; p < count; p++) {
+            if (size < heap.length) { int i = size++; heap[i] = p; while (i > 0 && scores[heap[(i - 1) >>> 1]] > scores[heap[i]]) { int parent = (i - 1) >>> 1; int t = heap[i]; heap[i] = heap[parent]; heap[parent] = t; i = parent; } }
+            else if (size > 0 && scores[p] > scores[heap[0]]) {
+                heap[0] = p;
+                for (int i = 0; ; ) {
+                    int left = 2 * i + 1, right = left + 1, smallest = i;
+                    if (left < size && scores[heap[left]] < scores[heap[smallest]]) smallest = left;
+                    if (right < size && scores[heap[right]] < scores[heap[smallest]]) smallest = right;
+                    if (smallest == i) break;
+                    int t = heap[i]; heap[i] = heap[smallest]; heap[smallest] = t; i = smallest;
+                }
+            }
+        }
+        List<Scored> top = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) top.add(new Scored(ids[candidates[heap[i]]], scores[heap[i]]));
+        top.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return top;
+    }
+
+    private int indexOrAdd(long bookId) {
+        int i = index.get(bookId); if (i >= 0) return i;
+        if (size == ids.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            ids = Arrays.copyOf(ids, capacity); borrowers = Arrays.copyOf(borrowers, capacity); rows = Arrays.copyOf(rows, capacity);
+        }
+        ids[size] = bookId; index.put(bookId, size); return size++;
+    }
+
+    private Row row(int b) { if (rows[b] == null) rows[b] = new Row(new int[neighbors], new int[neighbors], 0); return rows[b]; }
+
+    public record Scored(long bookId, double score) {}
+
+    private static final class Row {
+        final int[] neighbors, counts;
+        int size;
+
+        Row(int[] neighbors, int[] counts, int size) { this.neighbors = neighbors; this.counts = counts; this.size = size; }
+
+        void increment(int c, int capacity) {
+            int min = 0;
+            for (int i = 0; i < size; i++) { if (neighbors[i] == c) { counts[i]++; return; } if (counts[i] < counts[min]) min = i; }
+            if (size < capacity) { neighbors[size] = c; counts[size++] = 1; return; }
+            neighbors[min] = c; counts[min]++;
+        }
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        private final int from, to, neighbors;
+        private final int[] offsets, books, bookOffsets, bookMembers;
+        private final Row[] rows;
+        private final ThreadLocal<int[][]> scratch;
+
+        RowTask(int from, int to, int[] offsets, int[] books, int[] bookOffsets, int[] bookMembers, Row[] rows, int neighbors, ThreadLocal<int[][]> scratch) {
+            this.from = from; this.to = to; this.offsets = offsets; this.books = books; this.bookOffsets = bookOffsets; this.bookMembers = bookMembers;
+            this.rows = rows; this.neighbors = neighbors; this.scratch = scratch;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RowTask(from, mid, offsets, books, bookOffsets, bookMembers, rows, neighbors, scratch),
+                        new RowTask(mid, to, offsets, books, bookOffsets, bookMembers, rows, neighbors, scratch));
+                return;
+            }
+            int[][] buffers = scratch.get(); int[] counts = buffers[0], touched = buffers[1];
+            for (int b = from; b < to; b++) {
+                int touchedCount = 0;
+                for (int j = bookOffsets[b]; j < bookOffsets[b + 1]; j++) {
+                    int m = bookMembers[j];
+                    for (int i = offsets[m]; i < offsets[m + 1]; i++) { int c = books[i]; if (c != b && counts[c]++ == 0) touched[touchedCount++] = c; }
+                }
+                if (touchedCount > 0) rows[b] = select(counts, touched, touchedCount);
+                for (int i = 0; i < touchedCount; i++) counts[touched[i]] = 0;
+            }
+        }
+
+        // The neighbours with the highest counts, via a size-limited min-heap kept in the row's own arrays.
+        private Row select(int[] counts, int[] touched, int touchedCount) {
+            int capacity = Math.min(neighbors, touchedCount);
+            Row row = new Row(new int[neighbors], new int[neighbors], 0);
+            for (int i = 0; i < touchedCount; i++) {
+                int c = touched[i], count = counts[c];
+                if (row.size < capacity) { row.neighbors[row.size] = c; row.counts[row.size] = count; siftUp(row, row.size++); }
+                else if (count > row.counts[0]) { row.neighbors[0] = c; row.counts[0] = count; siftDown(row, 0); }
+            }
+            return row;
+        }
+
+        private static void siftUp(Row row, int i) { while (i > 0) { int parent = (i - 1) >>> 1; if (row.counts[parent] <= row.counts[i]) return; swap(row, i, parent); i = parent; } }
+
+        private static void siftDown(Row row, int i) {
+            while (true) {
+                int left = 2 * i + 1, right = left + 1, smallest = i;
+                if (left < row.size && row.counts[left] < row.counts[smallest]) smallest = left;
+                if (right < row.size && row.counts[right] < row.counts[smallest]) smallest = right;
+                if (smallest == i) return;
+                swap(row, i, smallest); i = smallest;
+            }
+        }
+
+        private static void swap(Row row, int a, int b) {
+            int n = row.neighbors[a]; row.neighbors[a] = row.neighbors[b]; row.neighbors[b] = n;
+            int c = row.counts[a]; row.counts[a] = row.counts[b]; row.counts[b] = c;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.library-backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch over long keys with conservative update: an add raises only the counters that are below the new
+ * estimate, which keeps over-counting of rare keys well under the textbook bound. Estimates never undercount. With
+ * width w and depth d the error is at most 2/w of the total added, with probability 1 - 2^-d. Counters are doubles
+ * so callers can add decayed weights and rescale. Not thread-safe on its own; callers synchronize.
+ */
+public class CountMinSketch {
+    private final int width, depth;
+    private final double[][] counters;
+    private final long[] seeds;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) throw new IllegalArgumentException("Sketch width and depth must be positive");
+        this.width = width; this.depth = depth; this.counters = new double[depth][width]; this.seeds = new long[depth];
+        for (int i = 0; i < depth; i++) seeds[i] = mix(0x9E3779B97F4A7C15L * (i + 1));
+    }
+
+    // Adds amount (positive) for key and returns the key's new estimate.
+    public double add(long key, double amount) {
+        int[] cells = new int[depth]; double estimate = Double.MAX_VALUE;
+        for (int i = 0; i < depth; i++) { cells[i] = cell(key, i); estimate = Math.min(estimate, counters[i][cells[i]]); }
+        double updated = estimate + amount;
+        for (int i = 0; i < depth; i++) if (counters[i][cells[i]] < updated) counters[i][cells[i]] = updated;
+        return updated;
+    }
+
+    public double estimate(long key) {
+        double estimate = Double.MAX_VALUE;
+        for (int i = 0; i < depth; i++) estimate = Math.min(estimate, counters[i][cell(key, i)]);
+        return estimate;
+    }
+
+    public void scale(double factor) { for (double[] row : counters) for (int j = 0; j < width; j++) row[j] *= factor; }
+
+    public void clear() { for (double[] row : counters) Arrays.fill(row, 0); }
+
+    private int cell(long key, int row) { return (int) Long.remainderUnsigned(mix(key ^ seeds[row]), width); }
+
+    // SplitMix64 finalizer; consecutive ids land in unrelated cells.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L; z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.library-backend.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forward-only RFC 4180 reader: one record at a time, quoted fields may contain separators, quotes ("") and line breaks.
+ */
+public class CsvReader implements Closeable {
+    private final BufferedReader reader;
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1, recordLine = 1;
+
+    public CsvReader(Reader reader) { this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024); }
+
+    // Next record, or null at end of input. Blank lines are skipped.
+    public List<String> next() throws IOException {
+        List<String> record = new ArrayList<>(); field.setLength(0);
+        boolean quoted = false, sawAny = false; recordLine = line;
+        int c;
+        while ((c = reader.read()) != -1) {
+            sawAny = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1); int n = reader.read();
+                    if (n == '"') field.append('"'); else { quoted = false; if (n != -1) reader.reset(); }
+                } else { if (c == '\n') line++; field.append((char) c); }
+            } else if (c == '"' && field.length() == 0) quoted = true;
+            else if (c == ',') { record.add(field.toString()); field.setLength(0); }
+            else if (c == '\r') continue;
+            else if (c == '\n') {
+                line++;
+                if (record.isEmpty() && field.length() == 0) { recordLine = line; sawAny = false; continue; }
+                record.add(field.toString()); return record;
+            } else field.append((char) c);
+        }
+        if (quoted) throw new IOException("Unterminated quoted field starting on line " + recordLine);
+        if (!sawAny || (record.isEmpty() && field.length() == 0)) return null;
+        record.add(field.toString()); return record;
+    }
+
+    // Line on which the record last returned by next() started.
+    public long getRecordLine() { return recordLine; }
+
+    @Override public void close() throws IOException { reader.close(); }
+}
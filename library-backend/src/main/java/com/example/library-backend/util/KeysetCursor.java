@@ -0,0 +1,29 @@
+package com.example.library-backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque "(sort key, id)" position of the last row of a page, handed back by clients to fetch the next one.
+public final class KeysetCursor {
+    private static final char SEPARATOR = '\u0000';
+    private final String key;
+    private final long id;
+
+    private KeysetCursor(String key, long id) { this.key = key; this.id = id; }
+
+    public String getKey() { return key; }
+    public long getId() { return id; }
+
+    public static String encode(Object key, Long id) {
+        String raw = (key != null ? key.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR); if (split < 0) throw new IllegalArgumentException("Invalid cursor");
+            return new KeysetCursor(raw.substring(0, split), Long.parseLong(raw.substring(split + 1)));
+        } catch (IllegalArgumentException e) { throw new IllegalArgumentException("Invalid cursor: " + cursor); }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.library-backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long to int with linear probing, for id-to-index tables too large to hold as boxed maps.
+ * Values are non-negative; {@link #get} returns -1 for a missing key. No removal. Not thread-safe on its own.
+ */
+public class LongIntHashMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size, mask;
+
+    public LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity]; values = new int[capacity]; mask = capacity - 1; Arrays.fill(keys, EMPTY);
+    }
+
+    public int get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) { if (keys[i] == key) return values[i]; if (keys[i] == EMPTY) return -1; }
+    }
+
+    public void put(long key, int value) {
+        if (key == EMPTY) throw new IllegalArgumentException("Key " + EMPTY + " is reserved");
+        int i = slot(key);
+        while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & mask;
+        if (keys[i] == EMPTY) { keys[i] = key; if (++size * 2 > keys.length) { values[i] = value; grow(); return; } }
+        values[i] = value;
+    }
+
+    public int size() { return size; }
+
+    private void grow() {
+        long[] oldKeys = keys; int[] oldValues = values;
+        keys = new long[oldKeys.length * 2]; values = new int[oldKeys.length * 2]; mask = keys.length - 1; Arrays.fill(keys, EMPTY);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == EMPTY) continue;
+            int i = slot(oldKeys[j]); while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = oldKeys[j]; values[i] = oldValues[j];
+        }
+    }
+
+    private int slot(long key) { long h = key * 0x9E3779B97F4A7C15L; return (int) (h ^ (h >>> 32)) & mask; }
+}
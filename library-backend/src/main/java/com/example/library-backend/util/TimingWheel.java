@@ -0,0 +1,98 @@
+package com.example.library-backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel. Each of the {@value #LEVELS} levels has 64 slots, and a slot at level L spans 64^L ticks.
+ * A timer sits at the lowest level whose current revolution contains its deadline. When a lower level wraps around,
+ * the next slot of the level above is cascaded down, so every timer is touched O(levels) times before it fires at its
+ * exact tick. Schedule, cancel and reschedule are O(1). Not thread-safe on its own; callers synchronize.
+ */
+public class TimingWheel<K> {
+    private static final int LEVELS = 5, BITS = 6, SLOTS = 1 << BITS, MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final Timer<K>[][] slots;
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    private final List<Timer<K>> expired = new ArrayList<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("Tick must be positive");
+        this.tickMillis = tickMillis; this.currentTick = nowMillis / tickMillis; this.slots = new Timer[LEVELS][SLOTS];
+    }
+
+    // Adds or moves the timer for key; a deadline that has already passed fires on the next advance.
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        Timer<K> timer = new Timer<>(key, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        timers.put(key, timer); place(timer);
+    }
+
+    public boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key); if (timer == null) return false;
+        unlink(timer); return true;
+    }
+
+    public boolean contains(K key) { return timers.containsKey(key); }
+
+    public int size() { return timers.size(); }
+
+    public void clear() { timers.clear(); expired.clear(); for (Timer<K>[] level : slots) Arrays.fill(level, null); }
+
+    // Moves time forward to nowMillis and returns the keys whose deadlines were reached, in deadline order.
+    public List<K> advance(long nowMillis) {
+        List<K> fired = new ArrayList<>();
+        for (Timer<K> timer : new ArrayList<>(expired)) fire(timer, fired);
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) != 0) continue;
+                int slot = (int) ((currentTick >>> (BITS * level)) & MASK);
+                Timer<K> timer = slots[level][slot]; slots[level][slot] = null;
+                while (timer != null) { Timer<K> next = timer.next; timer.prev = timer.next = null; timer.slot = null; place(timer); timer = next; }
+            }
+            int slot = (int) (currentTick & MASK);
+            Timer<K> timer = slots[0][slot];
+            while (timer != null) { Timer<K> next = timer.next; if (timer.deadlineTick <= currentTick) fire(timer, fired); timer = next; }
+            if (!expired.isEmpty()) for (Timer<K> due : new ArrayList<>(expired)) fire(due, fired);
+        }
+        return fired;
+    }
+
+    private void fire(Timer<K> timer, List<K> fired) { timers.remove(timer.key); unlink(timer); fired.add(timer.key); }
+
+    private void place(Timer<K> timer) {
+        if (timer.deadlineTick <= currentTick) { timer.slot = expired; expired.add(timer); return; }
+        int level = 0;
+        while (level < LEVELS - 1 && (timer.deadlineTick >>> (BITS * (level + 1))) != (currentTick >>> (BITS * (level + 1)))) level++;
+        int slot = (int) ((timer.deadlineTick >>> (BITS * level)) & MASK);
+        timer.level = level; timer.index = slot; timer.slot = slots;
+        timer.next = slots[level][slot]; if (timer.next != null) timer.next.prev = timer; slots[level][slot] = timer;
+    }
+
+    private void unlink(Timer<K> timer) {
+        if (timer.slot == expired) expired.remove(timer);
+        else if (timer.slot != null) {
+            if (timer.prev != null) timer.prev.next = timer.next; else slots[timer.level][timer.index] = timer.next;
+            if (timer.next != null) timer.next.prev = timer.prev;
+        }
+        timer.prev = timer.next = null; timer.slot = null;
+    }
+
+    private static final class Timer<K> {
+        final K key;
+        final long deadlineTick;
+        Object slot;
+        int level, index;
+        Timer<K> prev, next;
+
+        Timer(K key, long deadlineTick) { this.key = key; this.deadlineTick = deadlineTick; }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.library-backend.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The capacity highest-scoring keys seen so far, for heavy-hitter tracking alongside a {@link CountMinSketch}. Offering
+ * a key sets its score; when full, a new key replaces the lowest-scoring one only if it scores higher. Offer and
+ * eviction are O(log capacity). Not thread-safe on its own; callers synchronize.
+ */
+public class TopKTracker {
+    private final int capacity;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranked = new TreeSet<>(Comparator.comparingDouble(Entry::score).thenComparingLong(Entry::key));
+
+    public TopKTracker(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    public void offer(long key, double score) {
+        Entry current = entries.get(key);
+        if (current != null) ranked.remove(current);
+        else if (entries.size() >= capacity) {
+            Entry lowest = ranked.first(); if (lowest.score() >= score) return;
+            ranked.pollFirst(); entries.remove(lowest.key());
+        }
+        Entry entry = new Entry(key, score); entries.put(key, entry); ranked.add(entry);
+    }
+
+    // Recomputes every score, dropping keys that fall to zero or below; used when the scoring window moves.
+    public void rescore(ToDoubleFunction<Long> score) {
+        List<Entry> current = new ArrayList<>(ranked); ranked.clear(); entries.clear();
+        for (Entry entry : current) { double updated = score.applyAsDouble(entry.key()); if (updated > 0) offer(entry.key(), updated); }
+    }
+
+    // Highest first.
+    public List<Entry> top(int limit) {
+        List<Entry> top = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (Entry entry : ranked.descendingSet()) { if (top.size() >= limit) break; top.add(entry); }
+        return top;
+    }
+
+    public int size() { return entries.size(); }
+
+    public record Entry(long key, double score) {}
+}
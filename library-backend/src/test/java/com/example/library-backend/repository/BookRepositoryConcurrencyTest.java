@@ -0,0 +1,105 @@
+package com.example.library-backend.repository;
+
+import com.example.library-backend.entity.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many threads claim and return copies of one book at once; the conditional updates must never lose or invent a copy.
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookRepositoryConcurrencyTest {
+    private static final int THREADS = 16, COPIES = 50, ATTEMPTS_PER_THREAD = 20;
+
+    @Container @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired private BookRepository bookRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Test
+    void allocatesExactlyTheCopiesOnTheShelf() throws Exception {
+        Long bookId = newBook(COPIES);
+        int allocated = concurrently(() -> allocate(bookId));
+        assertEquals(COPIES, allocated);
+        assertEquals(0, available(bookId));
+    }
+
+    @Test
+    void releasesNoMoreThanTheCopiesOnLoan() throws Exception {
+        Long bookId = newBook(COPIES);
+        for (int i = 0; i < COPIES / 2; i++) allocate(bookId);
+        int released = concurrently(() -> release(bookId));
+        assertEquals(COPIES / 2, released);
+        assertEquals(COPIES, available(bookId));
+    }
+
+    @Test
+    void keepsCountsExactUnderMixedCheckoutsAndReturns() throws Exception {
+        Long bookId = newBook(COPIES / 5);
+        AtomicInteger onLoan = new AtomicInteger(), peak = new AtomicInteger();
+        concurrently(() -> {
+            if (allocate(bookId) == 0) return 0;
+            peak.accumulateAndGet(onLoan.incrementAndGet(), Math::max);
+            onLoan.decrementAndGet();
+            assertEquals(1, release(bookId));
+            return 1;
+        });
+        assertTrue(peak.get() <= COPIES / 5, "More copies were lent than the book has");
+        assertEquals(COPIES / 5, available(bookId));
+    }
+
+    // Runs the operation ATTEMPTS_PER_THREAD times on each of THREADS threads released together; returns the sum of its results.
+    private int concurrently(Operation operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS); CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) results.add(pool.submit(() -> {
+                start.await(); int total = 0;
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) total += operation.run();
+                return total;
+            }));
+            start.countDown();
+            int total = 0; for (Future<Integer> result : results) total += result.get(1, TimeUnit.MINUTES);
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Long newBook(int copies) {
+        return bookRepository.save(Book.builder().title("Concurrency").author("Test").totalCopies(copies).availableCopies(copies).build()).getId();
+    }
+
+    private int allocate(Long bookId) { return new TransactionTemplate(transactionManager).execute(status -> bookRepository.allocateCopy(bookId)); }
+
+    private int release(Long bookId) { return new TransactionTemplate(transactionManager).execute(status -> bookRepository.releaseCopy(bookId)); }
+
+    private int available(Long bookId) { return bookRepository.findById(bookId).orElseThrow().getAvailableCopies(); }
+
+    @FunctionalInterface
+    private interface Operation { int run() throws Exception; }
+}
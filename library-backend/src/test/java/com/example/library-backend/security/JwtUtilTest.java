@@ -0,0 +1,85 @@
+package com.example.library-backend.security;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtUtilTest {
+    private JwtUtil jwtUtil;
+    private SecretKey signingKey;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret-key-that-is-32-chars!");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxTtlMillis", 60_000L);
+        jwtUtil.init();
+        signingKey = (SecretKey) ReflectionTestUtils.getField(jwtUtil, "signingKey");
+    }
+
+    @Test
+    void verifiesAValidToken() {
+        assertEquals("alice", jwtUtil.verify(jwtUtil.generateToken(new User("alice", "x", Collections.emptyList()))));
+    }
+
+    @Test
+    void answersARepeatTokenFromTheCache() {
+        String token = jwtUtil.generateToken(new User("alice", "x", Collections.emptyList()));
+        assertEquals("alice", jwtUtil.verify(token));
+        // A parser that rejects every signature: only a cache hit can still answer for the token seen before.
+        useParser(Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor("another-secret-key-of-32-chars!!".getBytes(StandardCharsets.UTF_8))).build());
+        assertEquals("alice", jwtUtil.verify(token));
+        assertNull(jwtUtil.verify(jwtUtil.generateToken(new User("bob", "x", Collections.emptyList()))));
+    }
+
+    @Test
+    void doesNotCacheATokenPastItsExpiry() throws InterruptedException {
+        // exp is stored in whole seconds, so this expires between one and two seconds from now.
+        String token = token("alice", System.currentTimeMillis() + 2_000);
+        assertEquals("alice", jwtUtil.verify(token));
+        Thread.sleep(2_100);
+        assertNull(jwtUtil.verify(token));
+    }
+
+    @Test
+    void doesNotCacheATokenThatIsAlreadyExpired() {
+        // With clock skew allowed the parser accepts a token whose exp has passed; exp - now <= 0, so it must not be cached.
+        String token = token("alice", System.currentTimeMillis() - 1_000);
+        useParser(Jwts.parserBuilder().setSigningKey(signingKey).setAllowedClockSkewSeconds(60).build());
+        assertEquals("alice", jwtUtil.verify(token));
+        useParser(Jwts.parserBuilder().setSigningKey(signingKey).build());
+        assertNull(jwtUtil.verify(token));
+    }
+
+    @Test
+    void rejectsATamperedToken() {
+        String token = jwtUtil.generateToken(new User("alice", "x", Collections.emptyList()));
+        String[] parts = token.split("\\.");
+        String forgedPayload = Jwts.builder().setSubject("admin").setExpiration(new Date(System.currentTimeMillis() + 60_000)).signWith(signingKey, SignatureAlgorithm.HS256).compact().split("\\.")[1];
+        assertNull(jwtUtil.verify(parts[0] + "." + forgedPayload + "." + parts[2]));
+        char last = parts[2].charAt(parts[2].length() - 2);
+        assertNull(jwtUtil.verify(parts[0] + "." + parts[1] + "." + parts[2].substring(0, parts[2].length() - 2) + (last == 'A' ? 'B' : 'A') + parts[2].charAt(parts[2].length() - 1)));
+        assertNull(jwtUtil.verify("not-a-token"));
+    }
+
+    private String token(String subject, long expiresAt) {
+        return Jwts.builder().setSubject(subject).setExpiration(new Date(expiresAt)).signWith(signingKey, SignatureAlgorithm.HS256).compact();
+    }
+
+    private void useParser(JwtParser parser) { ReflectionTestUtils.setField(jwtUtil, "parser", parser); }
+}
@@ -0,0 +1,87 @@
+package com.example.library-backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request's token: the old path, which built the key and a parser per call and parsed the
+ * token twice (extractUsername, then validateToken), against {@link JwtUtil#verify} on a cache miss and a cache hit.
+ * Not part of the test suite; run {@link #main} with the test classpath, e.g. from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtVerifyBenchmark {
+    private static final String SECRET = "test-secret-key-that-is-32-chars!";
+    private static final int TOKENS = 1024;
+
+    private JwtUtil cached, uncached;
+    private final String[] tokens = new String[TOKENS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cached = jwtUtil(10_000);
+        // With room for a single entry and tokens used in rotation, every verify misses, parses and then evicts.
+        uncached = jwtUtil(1);
+        for (int i = 0; i < TOKENS; i++) tokens[i] = cached.generateToken(new User("member" + i, "x", Collections.emptyList()));
+        for (String token : tokens) cached.verify(token);
+    }
+
+    @Benchmark
+    public String doubleParse() {
+        String token = nextToken();
+        String subject = parseBeforeCache(token).getSubject();
+        return parseBeforeCache(token) != null ? subject : null;
+    }
+
+    @Benchmark
+    public String verifyCacheMiss() { return uncached.verify(nextToken()); }
+
+    @Benchmark
+    public String verifyCacheHit() { return cached.verify(nextToken()); }
+
+    private String nextToken() { next = (next + 1) & (TOKENS - 1); return tokens[next]; }
+
+    // What each of the two parses did before verify existed: a new key and a new parser for every call.
+    private static Claims parseBeforeCache(String token) {
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.substring(0, 32).getBytes())).build().parseClaimsJws(token).getBody();
+    }
+
+    private static JwtUtil jwtUtil(int cacheMaxEntries) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxEntries", cacheMaxEntries);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxTtlMillis", 900_000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerifyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.library-backend.service;
+
+import com.example.library-backend.entity.Book;
+import com.example.library-backend.entity.Loan;
+import com.example.library-backend.entity.Member;
+import com.example.library-backend.repository.BookRepository;
+import com.example.library-backend.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checkouts, returns and holds on a few scarce books from many threads, through LoanService and HoldService as the
+// controllers call them. Afterwards every copy must be on the shelf, on loan or set aside for a READY hold, exactly once.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false", "logging.level.org.hibernate=INFO", "logging.level.org.springframework.security=INFO",
+        "logging.level.com.example.library-backend=INFO", "library.event-log.enabled=false"})
+@Testcontainers
+class LoanServiceStressTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoanServiceStressTest.class);
+    private static final int THREADS = 32, OPERATIONS = 20_000, BOOKS = 40, COPIES = 3, MEMBERS = 400, LIMIT = 5;
+    private static final double RETURN_SHARE = 0.45, HOLD_SHARE = 0.3;
+
+    @Container @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired private LoanService loanService;
+    @Autowired private HoldService holdService;
+    @Autowired private BookRepository bookRepository;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Test
+    void neverLendsACopyTwiceUnderConcurrentCirculation() throws Exception {
+        List<Long> books = new ArrayList<>(), members = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) books.add(bookRepository.save(Book.builder().title("Stress " + i).author("Test").isbn("STRESS-" + i).totalCopies(COPIES).availableCopies(COPIES).build()).getId());
+        for (int i = 0; i < MEMBERS; i++) members.add(memberRepository.save(Member.builder().firstName("Stress").lastName("Member " + i).email("stress" + i + "@example.com").membershipId("STRESS-" + i).build()).getId());
+
+        AtomicInteger checkouts = new AtomicInteger(), returns = new AtomicInteger(), holds = new AtomicInteger(), refused = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS); CountDownLatch start = new CountDownLatch(1);
+        long elapsedNanos;
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) workers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current(); List<Long> open = new ArrayList<>();
+                start.await();
+                for (int i = 0; i < OPERATIONS / THREADS; i++) {
+                    try {
+                        if (!open.isEmpty() && random.nextDouble() < RETURN_SHARE) { loanService.returnLoan(open.remove(random.nextInt(open.size()))); returns.incrementAndGet(); continue; }
+                        Long bookId = books.get(random.nextInt(BOOKS)), memberId = members.get(random.nextInt(MEMBERS));
+                        try { Loan loan = loanService.createLoan(bookId, memberId, null, null); open.add(loan.getId()); checkouts.incrementAndGet(); }
+                        catch (IllegalStateException refusal) {
+                            refused.incrementAndGet();
+                            if (refusal.getMessage().startsWith("No copies") && random.nextDouble() < HOLD_SHARE) { holdService.placeHold(bookId, memberId); holds.incrementAndGet(); }
+                        }
+                    } catch (IllegalStateException | IllegalArgumentException refusal) {
+                        refused.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            }));
+            long begin = System.nanoTime(); start.countDown();
+            for (Future<?> worker : workers) worker.get(5, TimeUnit.MINUTES);
+            elapsedNanos = System.nanoTime() - begin;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double seconds = elapsedNanos / 1e9, operations = checkouts.get() + returns.get() + holds.get() + refused.get();
+        logger.info("{} operations in {} s: {} ops/s, {} checkouts/s ({} checkouts, {} returns, {} holds, {} refused)", (long) operations, String.format("%.2f", seconds),
+                Math.round(operations / seconds), Math.round(checkouts.get() / seconds), checkouts.get(), returns.get(), holds.get(), refused.get());
+        assertTrue(unexpected.isEmpty(), () -> unexpected.size() + " operations failed unexpectedly, first: " + unexpected.peek());
+        assertTrue(checkouts.get() > 0 && returns.get() > 0, "The workload did not circulate any books");
+        // Optional floor for runs on known hardware, e.g. -Dlibrary.stress.min-ops-per-second=1000.
+        long floor = Long.getLong("library.stress.min-ops-per-second", 0);
+        assertTrue(operations / seconds >= floor, "Throughput " + Math.round(operations / seconds) + " ops/s is below " + floor);
+
+        Map<String, Object> ids = Map.of("books", books);
+        jdbcTemplate.query("SELECT b.id, b.total_copies, b.available_copies, (SELECT COUNT(*) FROM loans l WHERE l.book_id = b.id AND l.returned = false), "
+                + "(SELECT COUNT(*) FROM holds h WHERE h.book_id = b.id AND h.status = 'READY') FROM books b WHERE b.id IN (:books)", ids, (rs, i) -> {
+            long bookId = rs.getLong(1), total = rs.getLong(2), available = rs.getLong(3), onLoan = rs.getLong(4), ready = rs.getLong(5);
+            assertTrue(available >= 0, "Book " + bookId + " has " + available + " copies available");
+            assertEquals(total, available + onLoan + ready, "Book " + bookId + ": " + available + " available + " + onLoan + " on loan + " + ready + " on READY holds");
+            return null;
+        });
+        assertEquals(0, jdbcTemplate.queryForList("SELECT member_id FROM loans WHERE returned = false AND book_id IN (:books) GROUP BY member_id HAVING COUNT(*) > " + LIMIT, ids, Long.class).size(),
+                "A member has more open loans than the limit allows");
+        assertEquals(0, jdbcTemplate.queryForList("SELECT member_id FROM loans WHERE returned = false AND book_id IN (:books) GROUP BY member_id, book_id HAVING COUNT(*) > 1", ids, Long.class).size(),
+                "A member has the same book on loan twice");
+        assertEquals((long) checkouts.get() - returns.get(), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loans WHERE returned = false AND book_id IN (:books)", ids, Long.class));
+    }
+}
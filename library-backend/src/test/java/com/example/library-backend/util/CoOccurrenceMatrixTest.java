@@ -0,0 +1,147 @@
+package com.example.library-backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// With rows wide enough to keep every neighbour, the matrix must agree with cosine similarity computed pair by pair.
+class CoOccurrenceMatrixTest {
+    private static final int BOOKS = 300, MEMBERS = 2_000, MAX_HISTORY = 25, K = 10;
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void relatedMatchesBruteForceCosine() {
+        Fixture fixture = new Fixture(new Random(42));
+        CoOccurrenceMatrix matrix = fixture.build(BOOKS, 4);
+        for (int b = 0; b < BOOKS; b++) assertRanking(fixture.bruteRelated(b), matrix.related(fixture.ids[b], K), "related(" + fixture.ids[b] + ")");
+    }
+
+    @Test
+    void recommendMatchesBruteForceCosine() {
+        Fixture fixture = new Fixture(new Random(7));
+        CoOccurrenceMatrix matrix = fixture.build(BOOKS, 4);
+        for (int m = 0; m < 200; m++) {
+            int[] history = fixture.history(m);
+            long[] ids = Arrays.stream(history).mapToLong(b -> fixture.ids[b]).toArray();
+            assertRanking(fixture.bruteRecommend(history), matrix.recommend(ids, K), "recommend(member " + m + ")");
+        }
+    }
+
+    @Test
+    void parallelAndSequentialBuildsAgree() {
+        Fixture fixture = new Fixture(new Random(3));
+        CoOccurrenceMatrix sequential = fixture.build(BOOKS, 1), parallel = fixture.build(BOOKS, 8);
+        for (int b = 0; b < BOOKS; b++) assertEquals(sequential.related(fixture.ids[b], K), parallel.related(fixture.ids[b], K));
+    }
+
+    @Test
+    void addBorrowMatchesARebuild() {
+        Fixture fixture = new Fixture(new Random(11));
+        // Replays the last book of every member's history as a new first-time borrowing on a matrix built without it.
+        Fixture withoutLast = fixture.withoutLastBook();
+        CoOccurrenceMatrix incremental = withoutLast.build(BOOKS, 4);
+        for (int m = 0; m < MEMBERS; m++) {
+            int[] history = fixture.history(m); if (history.length == 0) continue;
+            long[] others = Arrays.stream(history, 0, history.length - 1).mapToLong(b -> fixture.ids[b]).toArray();
+            incremental.addBorrow(fixture.ids[history[history.length - 1]], others);
+        }
+        CoOccurrenceMatrix rebuilt = fixture.build(BOOKS, 4);
+        for (int b = 0; b < BOOKS; b++) assertRanking(rebuilt.related(fixture.ids[b], K), incremental.related(fixture.ids[b], K), "related(" + fixture.ids[b] + ")");
+    }
+
+    @Test
+    void rowsKeepOnlyTheStrongestNeighbours() {
+        Fixture fixture = new Fixture(new Random(5));
+        CoOccurrenceMatrix narrow = fixture.build(K, 4); fixture.count();
+        for (int b = 0; b < BOOKS; b++) {
+            List<CoOccurrenceMatrix.Scored> related = narrow.related(fixture.ids[b], BOOKS);
+            assertTrue(related.size() <= K, "row for " + fixture.ids[b] + " has " + related.size() + " neighbours");
+            int[] counts = fixture.co[b].clone(); Arrays.sort(counts); int threshold = counts[BOOKS - K];
+            for (CoOccurrenceMatrix.Scored neighbour : related) {
+                int c = (int) ((neighbour.bookId() - 1_000) / 7);
+                assertTrue(fixture.co[b][c] >= threshold, "row for " + fixture.ids[b] + " kept a neighbour with " + fixture.co[b][c] + " co-borrowings below " + threshold);
+            }
+        }
+    }
+
+    // Scores must match position by position; ids may differ only where scores tie.
+    private static void assertRanking(List<CoOccurrenceMatrix.Scored> expected, List<CoOccurrenceMatrix.Scored> actual, String what) {
+        assertEquals(expected.size(), actual.size(), what + " size");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).score(), actual.get(i).score(), EPSILON, what + " score at " + i);
+            if (i + 1 < expected.size() && expected.get(i).score() - expected.get(i + 1).score() > EPSILON && (i == 0 || expected.get(i - 1).score() - expected.get(i).score() > EPSILON))
+                assertEquals(expected.get(i).bookId(), actual.get(i).bookId(), what + " book at " + i);
+        }
+    }
+
+    private static final class Fixture {
+        final long[] ids = new long[BOOKS];
+        final int[][] histories;
+        private int[][] co;
+        private int[] borrowers;
+
+        Fixture(Random random) {
+            for (int b = 0; b < BOOKS; b++) ids[b] = 1_000 + 7L * b;
+            histories = new int[MEMBERS][];
+            for (int m = 0; m < MEMBERS; m++) {
+                // Skewed towards low indices so popular books and strong pairs exist.
+                Set<Integer> books = new HashSet<>(); int size = random.nextInt(MAX_HISTORY + 1);
+                while (books.size() < size) books.add((int) (BOOKS * Math.pow(random.nextDouble(), 2)));
+                histories[m] = books.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        private Fixture(long[] ids, int[][] histories) { System.arraycopy(ids, 0, this.ids, 0, BOOKS); this.histories = histories; }
+
+        int[] history(int member) { return histories[member]; }
+
+        Fixture withoutLastBook() {
+            int[][] trimmed = new int[MEMBERS][];
+            for (int m = 0; m < MEMBERS; m++) trimmed[m] = Arrays.copyOf(histories[m], Math.max(0, histories[m].length - 1));
+            return new Fixture(ids, trimmed);
+        }
+
+        CoOccurrenceMatrix build(int neighbors, int parallelism) {
+            int[] offsets = new int[MEMBERS + 1]; List<Integer> books = new ArrayList<>();
+            for (int m = 0; m < MEMBERS; m++) { for (int b : histories[m]) books.add(b); offsets[m + 1] = books.size(); }
+            return CoOccurrenceMatrix.build(ids, offsets, books.stream().mapToInt(Integer::intValue).toArray(), neighbors, parallelism);
+        }
+
+        // Pair counts and borrower counts over every member, computed once.
+        void count() {
+            if (co != null) return;
+            co = new int[BOOKS][BOOKS]; borrowers = new int[BOOKS];
+            for (int[] history : histories) for (int a : history) { borrowers[a]++; for (int b : history) if (a != b) co[a][b]++; }
+        }
+
+        List<CoOccurrenceMatrix.Scored> bruteRelated(int book) {
+            count(); double[] scores = new double[BOOKS];
+            for (int c = 0; c < BOOKS; c++) if (c != book && co[book][c] > 0) scores[c] = cosine(co[book][c], borrowers[book], borrowers[c]);
+            return top(scores, Set.of());
+        }
+
+        List<CoOccurrenceMatrix.Scored> bruteRecommend(int[] history) {
+            count(); double[] scores = new double[BOOKS]; Set<Integer> seen = new HashSet<>();
+            for (int h : history) seen.add(h);
+            for (int h : history) for (int c = 0; c < BOOKS; c++) if (!seen.contains(c) && co[h][c] > 0) scores[c] += cosine(co[h][c], borrowers[h], borrowers[c]);
+            return top(scores, seen);
+        }
+
+        private List<CoOccurrenceMatrix.Scored> top(double[] scores, Set<Integer> excluded) {
+            List<CoOccurrenceMatrix.Scored> all = new ArrayList<>();
+            for (int c = 0; c < BOOKS; c++) if (scores[c] > 0 && !excluded.contains(c)) all.add(new CoOccurrenceMatrix.Scored(ids[c], scores[c]));
+            all.sort((a, b) -> Double.compare(b.score(), a.score()));
+            return all.subList(0, Math.min(K, all.size()));
+        }
+
+        private static double cosine(int co, int a, int b) { return co / Math.sqrt((double) a * b); }
+    }
+}